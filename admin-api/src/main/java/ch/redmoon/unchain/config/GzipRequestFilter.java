@@ -0,0 +1,180 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses request bodies sent with {@code Content-Encoding: gzip}, such
+ * as the metrics reports of the SDKs. The decompressed size is capped to guard
+ * against compression bombs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    static final long MAX_DECOMPRESSED_BYTES = 16 * 1024 * 1024;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || !"gzip".equalsIgnoreCase(encoding.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        GzipRequestWrapper wrapper;
+        try {
+            wrapper = new GzipRequestWrapper(request);
+        } catch (IOException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid gzip request body");
+            return;
+        }
+        filterChain.doFilter(wrapper, response);
+    }
+
+    private static class GzipRequestWrapper extends HttpServletRequestWrapper {
+        private final ServletInputStream inputStream;
+
+        GzipRequestWrapper(HttpServletRequest request) throws IOException {
+            super(request);
+            this.inputStream = new BoundedInputStream(new GZIPInputStream(request.getInputStream()));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(inputStream,
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+    }
+
+    private static class BoundedInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private long read;
+        private boolean finished;
+
+        BoundedInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n < 0) {
+                finished = true;
+            } else {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > MAX_DECOMPRESSED_BYTES) {
+                throw new IOException("Decompressed request body exceeds " + MAX_DECOMPRESSED_BYTES + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads are not supported for gzip request bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.controller;
+
+import ch.redmoon.unchain.api.ClientApi;
+import ch.redmoon.unchain.api.model.ClientFeatures;
+import ch.redmoon.unchain.api.model.ContextEvaluation;
+import ch.redmoon.unchain.api.model.EvaluateFlagsRequest;
+import ch.redmoon.unchain.api.model.EvaluateFlagsResponse;
+import ch.redmoon.unchain.api.model.EvaluationContext;
+import ch.redmoon.unchain.api.model.FlagEvaluation;
+import ch.redmoon.unchain.api.model.VariantPayload;
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.repository.EnvironmentRepository;
+import ch.redmoon.unchain.service.ClientFeaturesService;
+import ch.redmoon.unchain.service.FeatureRevisionService;
+import ch.redmoon.unchain.service.FlagEvaluationService;
+import ch.redmoon.unchain.service.ProjectPayloadCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the SDKs the features of a single environment, with only the fields
+ * needed to evaluate them, and evaluates flags for clients without an SDK.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ClientController implements ClientApi {
+
+    private final EnvironmentRepository environmentRepository;
+    private final FeatureRevisionService revisionService;
+    private final ClientFeaturesService clientFeaturesService;
+    private final FlagEvaluationService evaluationService;
+    private final ProjectPayloadCache payloadCache;
+
+    @Value("${unchain.sdk.poll-interval-seconds:60}")
+    private int pollIntervalSeconds;
+
+    @Value("${unchain.evaluation.max-contexts-per-request:1000}")
+    private int maxContextsPerRequest;
+
+    @Value("${unchain.evaluation.max-features-per-request:1000}")
+    private int maxFeaturesPerRequest;
+
+    @Override
+    public ResponseEntity<ClientFeatures> getClientFeatures(String projectId, String environment,
+            Optional<Boolean> enabledOnly, Optional<Long> sinceRevision, Optional<String> ifNoneMatch,
+            Optional<String> acceptEncoding) {
+        ClientFeaturesService.View view = new ClientFeaturesService.View(environment, enabledOnly.orElse(false));
+        String etag = revisionService.getETag(projectId, view.name());
+        if (FeatureRevisionService.matches(ifNoneMatch.orElse(null), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header("Cache-Control", "max-age=" + pollIntervalSeconds)
+                    .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
+                    .build();
+        }
+
+        Optional<FeatureRevisionService.Changes> changes = sinceRevision
+                .flatMap(revision -> revisionService.getChangesSince(projectId, revision));
+        if (changes.isPresent()) {
+            if (!environmentRepository.existsById(environment)) {
+                return ResponseEntity.notFound().build();
+            }
+            ClientFeatures delta = clientFeaturesService.getChanges(projectId, view, changes.get());
+            return ResponseEntity.ok()
+                    .eTag(FeatureRevisionService.toETag(delta.getRevision(), view.name()))
+                    .header("Cache-Control", "max-age=" + pollIntervalSeconds)
+                    .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
+                    .body(delta);
+        }
+
+        ProjectPayloadCache.Payload payload = clientFeaturesService.getFeatures(projectId, view);
+        if (payload == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return PayloadResponses.ok(payload, acceptEncoding.orElse(null), pollIntervalSeconds);
+    }
+
+    @Override
+    public ResponseEntity<EvaluateFlagsResponse> evaluateFlags(String projectId, String environment,
+            EvaluateFlagsRequest evaluateFlagsRequest) {
+        List<EvaluationContext> contexts = evaluateFlagsRequest.getContexts();
+        if (contexts == null || contexts.size() > maxContextsPerRequest) {
+            return ResponseEntity.badRequest().build();
+        }
+        // The work is contexts times features, so both are bounded
+        List<String> features = evaluateFlagsRequest.getFeatures();
+        if (features != null && (features.size() > maxFeaturesPerRequest
+                || features.stream().anyMatch(name -> name == null || name.isEmpty()))) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Rejected like by getClientFeatures, rather than evaluating every flag as disabled
+        if (!environmentRepository.existsById(environment)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        FlagEvaluationService.Snapshot snapshot = evaluationService.getSnapshot(projectId);
+        // Cached once loaded, unless the project does not exist
+        if (!payloadCache.contains(projectId)) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Map<String, EvaluationResult>> results = evaluationService.evaluate(snapshot, environment, features,
+                contexts.stream().map(ClientController::toUnchainContext).collect(Collectors.toList()));
+
+        EvaluateFlagsResponse response = new EvaluateFlagsResponse();
+        response.setRevision(snapshot.revision());
+        response.setResults(results.stream().map(flags -> {
+            ContextEvaluation evaluation = new ContextEvaluation();
+            flags.forEach((name, result) -> evaluation.putFlagsItem(name, toFlagEvaluation(result)));
+            return evaluation;
+        }).collect(Collectors.toList()));
+        return ResponseEntity.ok(response);
+    }
+
+    private static UnchainContext toUnchainContext(EvaluationContext context) {
+        UnchainContext.UnchainContextBuilder builder = UnchainContext.builder()
+                .userId(context.getUserId())
+                .sessionId(context.getSessionId());
+        if (context.getProperties() != null) {
+            builder.properties(context.getProperties());
+        }
+        return builder.build();
+    }
+
+    private static FlagEvaluation toFlagEvaluation(EvaluationResult result) {
+        FlagEvaluation dto = new FlagEvaluation();
+        dto.setEnabled(result.isEnabled());
+        dto.setStrategy(result.getStrategyName());
+        dto.setReason(FlagEvaluation.ReasonEnum.fromValue(result.getReason().name()));
+        if (result.getVariant() != null) {
+            dto.setVariant(result.getVariant().getName());
+            if (result.getVariant().getPayload() != null) {
+                VariantPayload payload = new VariantPayload();
+                payload.setType(VariantPayload.TypeEnum.fromValue(result.getVariant().getPayload().getType()));
+                payload.setValue(result.getVariant().getPayload().getValue());
+                dto.setPayload(payload);
+            }
+        }
+        return dto;
+    }
+}
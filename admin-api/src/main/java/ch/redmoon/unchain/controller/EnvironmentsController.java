@@ -23,6 +23,7 @@ import ch.redmoon.unchain.api.model.UpdateEnvironmentRequest;
 import ch.redmoon.unchain.api.model.CreateEnvironmentRequest;
 import ch.redmoon.unchain.entity.ChangeRequestState;
 import ch.redmoon.unchain.entity.EnvironmentEntity;
+import ch.redmoon.unchain.entity.ProjectEntity;
 import ch.redmoon.unchain.repository.EnvironmentRepository;
 import ch.redmoon.unchain.repository.FeatureRepository;
 import ch.redmoon.unchain.repository.ProjectRepository;
@@ -32,6 +33,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import ch.redmoon.unchain.exception.BusinessRuleViolationException;
+import ch.redmoon.unchain.service.FeatureRevisionService;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -45,6 +47,7 @@ public class EnvironmentsController implements EnvironmentsApi {
     private final FeatureRepository featureRepository;
     private final ProjectRepository projectRepository;
     private final ch.redmoon.unchain.repository.ChangeRequestRepository changeRequestRepository;
+    private final FeatureRevisionService revisionService;
 
     @Override
     public ResponseEntity<EnvironmentList> getAllEnvironments() {
@@ -111,6 +114,9 @@ public class EnvironmentsController implements EnvironmentsApi {
                                 "Cannot delete environment because it has pending change requests.");
                     }
                     environmentRepository.delete(entity);
+                    revisionService.markAllChanged(projectRepository.findAll().stream()
+                            .map(ProjectEntity::getId)
+                            .collect(Collectors.toList()));
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
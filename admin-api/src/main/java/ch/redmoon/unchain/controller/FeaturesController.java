@@ -22,23 +22,41 @@ import ch.redmoon.unchain.entity.*;
 import ch.redmoon.unchain.repository.*;
 import ch.redmoon.unchain.util.JsonUtils;
 import ch.redmoon.unchain.event.UnchainEventPublisher;
+import ch.redmoon.unchain.service.ChangeCoalescer;
+import ch.redmoon.unchain.service.ClientFeaturesService;
+import ch.redmoon.unchain.service.FeatureReadModel;
+import ch.redmoon.unchain.service.FeatureRevisionService;
+import ch.redmoon.unchain.service.FeatureStreamBuffer;
+import ch.redmoon.unchain.service.FeatureStreamBuffer.StreamEvent;
+import ch.redmoon.unchain.service.ProjectPayloadCache;
+import ch.redmoon.unchain.service.SseBroadcaster;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import ch.redmoon.unchain.entity.ChangeRequestState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.RestController;
 import ch.redmoon.unchain.exception.BusinessRuleViolationException;
 
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Map;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @RestController
@@ -52,24 +70,107 @@ public class FeaturesController implements FeaturesApi {
     private final FeatureStrategyRepository featureStrategyRepository;
     private final ch.redmoon.unchain.repository.ChangeRequestRepository changeRequestRepository;
     private final UnchainEventPublisher eventPublisher;
+    private final FeatureRevisionService revisionService;
+    private final FeatureStreamBuffer streamBuffer;
+    private final SseBroadcaster broadcaster;
+    private final ProjectPayloadCache payloadCache;
+    private final FeatureReadModel featureReadModel;
+    private final ClientFeaturesService clientFeaturesService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
 
     @Value("${unchain.sdk.poll-interval-seconds:60}")
     private int pollIntervalSeconds;
 
+    @Value("${unchain.sdk.max-projects-per-request:50}")
+    private int maxProjectsPerRequest;
+
     @Override
-    public ResponseEntity<GetFeaturesByProject200Response> getFeaturesByProject(String projectId) {
-        List<FeatureEntity> entities = featureRepository.findByProjectId(projectId);
-        List<Feature> dtos = entities.stream().map(this::mapToSummaryDto).collect(Collectors.toList());
+    public ResponseEntity<GetFeaturesByProject200Response> getFeaturesByProject(String projectId,
+            Optional<Long> sinceRevision, Optional<String> ifNoneMatch, Optional<String> acceptEncoding) {
+        String etag = revisionService.getETag(projectId);
+        if (FeatureRevisionService.matches(ifNoneMatch.orElse(null), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header("Cache-Control", "max-age=" + pollIntervalSeconds)
+                    .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
+                    .build();
+        }
+
+        Optional<GetFeaturesByProject200Response> delta = sinceRevision
+                .flatMap(revision -> revisionService.getChangesSince(projectId, revision))
+                .map(changes -> buildDeltaResponse(projectId, changes));
+        if (delta.isPresent()) {
+            return ResponseEntity.ok()
+                    .eTag(FeatureRevisionService.toETag(delta.get().getRevision()))
+                    .header("Cache-Control", "max-age=" + pollIntervalSeconds)
+                    .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
+                    .body(delta.get());
+        }
 
+        // Full payloads are served pre-serialized from the cache
+        return PayloadResponses.ok(payloadCache.get(projectId), acceptEncoding.orElse(null), pollIntervalSeconds);
+    }
+
+    // The revision is read before the data: a concurrent change then at worst yields
+    // fresh data under a stale revision, never stale data under a fresh one.
+    private GetFeaturesByProject200Response buildFeaturesResponse(String projectId, long revision) {
         GetFeaturesByProject200Response response = new GetFeaturesByProject200Response();
-        response.setFeatures(dtos);
+        response.setFeatures(featureReadModel.getFeatures(projectId));
+        response.setRevision(revision);
+        response.setDelta(false);
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<GetFeaturesByProjects200Response> getFeaturesByProjects(List<String> projects) {
+        List<String> projectIds = projects.stream()
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (projectIds.isEmpty() || projectIds.size() > maxProjectsPerRequest) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Revisions are read before the data, see buildFeaturesResponse
+        Map<String, Long> revisions = new LinkedHashMap<>();
+        projectIds.forEach(id -> revisions.put(id, revisionService.getRevision(id)));
+        Map<String, List<Feature>> featuresByProject = featureReadModel.getFeatures(projectIds);
+
+        List<ProjectFeatures> result = new ArrayList<>();
+        revisions.forEach((projectId, revision) -> {
+            ProjectFeatures projectFeatures = new ProjectFeatures();
+            projectFeatures.setProjectId(projectId);
+            projectFeatures.setFeatures(featuresByProject.getOrDefault(projectId, new ArrayList<>()));
+            projectFeatures.setRevision(revision);
+            result.add(projectFeatures);
+        });
 
+        GetFeaturesByProjects200Response response = new GetFeaturesByProjects200Response();
+        response.setProjects(result);
         return ResponseEntity.ok()
                 .header("Cache-Control", "max-age=" + pollIntervalSeconds)
                 .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
                 .body(response);
     }
 
+    private GetFeaturesByProject200Response buildDeltaResponse(String projectId,
+            FeatureRevisionService.Changes changes) {
+        List<Feature> upserted = featureReadModel.getFeaturesByName(changes.featureNames()).stream()
+                .filter(f -> projectId.equals(f.getProject()))
+                .collect(Collectors.toList());
+        Set<String> deleted = new TreeSet<>(changes.featureNames());
+        upserted.forEach(f -> deleted.remove(f.getName()));
+
+        GetFeaturesByProject200Response response = new GetFeaturesByProject200Response();
+        response.setFeatures(upserted);
+        response.setDeleted(new ArrayList<>(deleted));
+        response.setRevision(changes.revision());
+        response.setDelta(true);
+        return response;
+    }
+
     @Override
     @org.springframework.transaction.annotation.Transactional
     public ResponseEntity<Feature> createFeature(String projectId, CreateFeatureRequest createFeatureRequest) {
@@ -126,7 +227,7 @@ public class FeaturesController implements FeaturesApi {
                         FeatureEntity saved = featureRepository.saveAndFlush(entity);
                         log.info("Feature '{}' created successfully in project '{}'", featureName, projectId);
 
-                        Feature responseDto = mapToSummaryDto(saved);
+                        Feature responseDto = featureReadModel.getFeaturesByName(List.of(saved.getName())).get(0);
                         eventPublisher.publishFeatureCreated(projectId, featureName);
                         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
                     } catch (org.springframework.dao.DataIntegrityViolationException e) {
@@ -139,9 +240,8 @@ public class FeaturesController implements FeaturesApi {
 
     @Override
     public ResponseEntity<Feature> getFeature(String projectId, String featureName) {
-        return featureRepository.findById(featureName)
-                .filter(f -> f.getProject().getId().equals(projectId))
-                .map(this::mapToFullDto)
+        return featureReadModel.getFullFeature(featureName)
+                .filter(f -> projectId.equals(f.getProject()))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -299,214 +399,354 @@ public class FeaturesController implements FeaturesApi {
         return ResponseEntity.notFound().build();
     }
 
-    private Feature mapToSummaryDto(FeatureEntity entity) {
-        Feature dto = new Feature();
-        dto.setName(entity.getName());
-        dto.setDescription(entity.getDescription());
-        dto.setType(entity.getType());
-        dto.setStale(entity.isStale());
-        dto.setImpressionData(entity.isImpressionData());
-        dto.setCreatedAt(entity.getCreatedAt());
-        dto.setProject(entity.getProject().getId());
-        dto.setVariants(mapVariants(entity.getVariants()));
-
-        // Summary includes environments that are enabled or have strategies
-        List<EnvironmentEntity> allEnvs = environmentRepository.findAll();
-        List<FeatureEnvironment> featureEnvs = allEnvs.stream()
-                .map(env -> {
-                    boolean isEnabled = entity.getEnvironments().contains(env);
-                    List<Strategy> strategies = featureStrategyRepository
-                            .findByFeatureNameAndEnvironmentName(entity.getName(), env.getName())
-                            .stream()
-                            .map(this::mapToStrategyDto)
-                            .collect(Collectors.toList());
+    @Value("${unchain.sse.enabled:false}")
+    private boolean sseEnabled;
 
-                    if (isEnabled || !strategies.isEmpty()) {
-                        FeatureEnvironment fe = new FeatureEnvironment();
-                        fe.setName(env.getName());
-                        fe.setEnabled(isEnabled);
-                        fe.setStrategies(strategies);
-                        return fe;
-                    }
-                    return null;
-                })
-                .filter(java.util.Objects::nonNull)
-                .collect(Collectors.toList());
+    private static final String FULL_EVENT = "features";
+    private static final String UPSERTED_EVENT = "feature-upserted";
+    private static final String DELETED_EVENT = "feature-deleted";
+    private static final String CHANGED_EVENT = "features-changed";
+    // Payload view of the multiplexed streams, the features wrapped with their project
+    private static final String STREAM_VIEW = "stream";
 
-        dto.setEnvironments(featureEnvs);
-        return dto;
-    }
+    @Value("${unchain.events.coalesce-window-ms:150}")
+    private long coalesceWindowMs;
 
-    private Feature mapToFullDto(FeatureEntity entity) {
-        Feature dto = new Feature();
-        dto.setName(entity.getName());
-        dto.setDescription(entity.getDescription());
-        dto.setType(entity.getType());
-        dto.setStale(entity.isStale());
-        dto.setImpressionData(entity.isImpressionData());
-        dto.setCreatedAt(entity.getCreatedAt());
-        dto.setProject(entity.getProject().getId());
-        dto.setVariants(mapVariants(entity.getVariants()));
-
-        // Full DTO includes ALL environments
-        List<EnvironmentEntity> allEnvs = environmentRepository.findAll();
-        List<FeatureEnvironment> featureEnvs = allEnvs.stream().map(env -> {
-            FeatureEnvironment fe = new FeatureEnvironment();
-            fe.setName(env.getName());
-
-            boolean isEnabled = entity.getEnvironments().stream()
-                    .anyMatch(e -> e.getName().equals(env.getName()));
-            fe.setEnabled(isEnabled);
-
-            List<Strategy> strategies = featureStrategyRepository
-                    .findByFeatureNameAndEnvironmentName(entity.getName(), env.getName())
-                    .stream()
-                    .map(this::mapToStrategyDto)
-                    .collect(Collectors.toList());
-            fe.setStrategies(strategies);
-
-            return fe;
-        }).collect(Collectors.toList());
-
-        dto.setEnvironments(featureEnvs);
-        return dto;
-    }
+    @Value("${unchain.events.coalesce-max-delay-ms:1000}")
+    private long coalesceMaxDelayMs;
 
-    private Strategy mapToStrategyDto(FeatureStrategyEntity entity) {
-        Strategy dto = new Strategy();
-        dto.setId(entity.getId().toString());
-        dto.setName(entity.getStrategyName());
-
-        List<Constraint> constraints = entity.getConstraints().stream().map(c -> {
-            Constraint constraint = new Constraint();
-            constraint.setContextName(c.getContextName());
-            try {
-                constraint.setOperator(Constraint.OperatorEnum.fromValue(c.getOperator()));
-            } catch (Exception e) {
-            }
-            constraint.setCaseInsensitive(c.isCaseInsensitive());
-            constraint.setInverted(c.isInverted());
-            constraint.setValues(
-                    c.getValues().stream().map(StrategyConstraintValueEntity::getValue).collect(Collectors.toList()));
-            return constraint;
-        }).collect(Collectors.toList());
-        dto.setConstraints(constraints);
-
-        if (entity.getParameters() != null) {
-            List<StrategyParameter> params = entity.getParameters().stream().map(p -> {
-                StrategyParameter sp = new StrategyParameter();
-                sp.setName(p.getName());
-                sp.setValue(p.getValue());
-                return sp;
-            }).collect(Collectors.toList());
-            dto.setParameters(params);
+    // Serializes the publication of stream events with the subscription of
+    // multiplexed streams, so a stream neither misses nor reorders events
+    private final Object streamLock = new Object();
+    // Environment views streamed per project, guarded by the stream lock
+    private final Map<String, Map<ClientFeaturesService.View, StreamView>> streamViews = new HashMap<>();
+    private TransactionTemplate streamTransaction;
+    private ChangeCoalescer streamCoalescer;
+
+    @Override
+    public ResponseEntity<Object> getFeaturesStream(String projectId) {
+        if (!sseEnabled) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
         }
 
-        dto.setVariants(mapStrategyVariants(entity.getVariants()));
-        return dto;
-    }
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // Keep alive indefinitely
+        SseBroadcaster.Subscription subscription = broadcaster.subscribe(emitter, List.of(projectTopic(projectId)));
 
-    private List<Variant> mapStrategyVariants(List<FeatureStrategyVariantEntity> entities) {
-        if (entities == null)
-            return null;
-        return entities.stream().map(v -> {
-            Variant vd = new Variant();
-            vd.setName(v.getName());
-            vd.setWeight(v.getWeight());
-            vd.setStickiness(v.getStickiness());
-            if (v.getPayloadType() != null) {
-                VariantPayload vp = new VariantPayload();
-                vp.setType(VariantPayload.TypeEnum.fromValue(v.getPayloadType()));
-                vp.setValue(v.getPayloadValue());
-                vd.setPayload(vp);
-            }
-            return vd;
-        }).collect(Collectors.toList());
-    }
+        // Initial PUSH of current state
+        subscription.send(SseEmitter.event().data(payloadCache.get(projectId).json()));
 
-    private List<Variant> mapVariants(List<FeatureVariantEntity> entities) {
-        if (entities == null)
-            return null;
-        return entities.stream().map(v -> {
-            Variant vd = new Variant();
-            vd.setName(v.getName());
-            vd.setWeight(v.getWeight());
-            vd.setStickiness(v.getStickiness());
-            if (v.getPayloadType() != null) {
-                VariantPayload vp = new VariantPayload();
-                vp.setType(VariantPayload.TypeEnum.fromValue(v.getPayloadType()));
-                vp.setValue(v.getPayloadValue());
-                vd.setPayload(vp);
-            }
-            return vd;
-        }).collect(Collectors.toList());
+        return ResponseEntity.ok(emitter);
     }
 
-    // Map<ProjectId, List<SseEmitter>>
-    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
-
-    @Value("${unchain.sse.enabled:false}")
-    private boolean sseEnabled;
-
     @Override
-    public ResponseEntity<Object> getFeaturesStream(String projectId) {
+    public ResponseEntity<Object> getFeaturesStreamByProjects(List<String> projects, Optional<String> environment,
+            Optional<Boolean> enabledOnly, Optional<String> lastEventId) {
         if (!sseEnabled) {
             return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
         }
 
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // Keep alive indefinitely
-        emitters.computeIfAbsent(projectId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-
-        emitter.onCompletion(() -> removeEmitter(projectId, emitter));
-        emitter.onTimeout(() -> removeEmitter(projectId, emitter));
+        List<String> projectIds = projects.stream()
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (projectIds.isEmpty() || projectIds.size() > maxProjectsPerRequest) {
+            return ResponseEntity.badRequest().build();
+        }
+        ClientFeaturesService.View view = environment
+                .map(env -> new ClientFeaturesService.View(env, enabledOnly.orElse(false)))
+                .orElse(null);
+        if (view != null && !environmentRepository.existsById(view.environment())) {
+            return ResponseEntity.notFound().build();
+        }
+        // Cached for every existing project once warmed up
+        if (!projectIds.stream().allMatch(id -> payloadCache.contains(id) || projectRepository.existsById(id))) {
+            return ResponseEntity.notFound().build();
+        }
+        List<String> streams = projectIds.stream().map(projectId -> streamOf(projectId, view))
+                .collect(Collectors.toList());
+        List<String> topics = streams.stream().map(FeaturesController::streamTopic).collect(Collectors.toList());
 
-        // Initial PUSH of current state
+        List<StreamView> registered;
+        synchronized (streamLock) {
+            registered = view == null ? List.of() : registerStreamView(projectIds, view);
+        }
         try {
-            GetFeaturesByProject200Response featuresResponse = getFeaturesByProject(projectId).getBody();
-            if (featuresResponse != null) {
-                emitter.send(featuresResponse);
+            return subscribeStream(projectIds, view, streams, topics, registered,
+                    lastEventId.flatMap(FeaturesController::parseEventId));
+        } finally {
+            synchronized (streamLock) {
+                registered.forEach(streamView -> streamView.pending--);
+            }
+        }
+    }
+
+    // Replays the missed events of the streams, or sends the current state
+    private ResponseEntity<Object> subscribeStream(List<String> projectIds, ClientFeaturesService.View view,
+            List<String> streams, List<String> topics, List<StreamView> registered, Optional<Long> since) {
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // Keep alive indefinitely
+        long replayableSince = registered.stream().mapToLong(streamView -> streamView.registeredAt).max().orElse(Long.MIN_VALUE);
+        synchronized (streamLock) {
+            Optional<List<StreamEvent>> missed = since.filter(id -> id >= replayableSince)
+                    .flatMap(id -> streamBuffer.getEventsSince(id, streams))
+                    .filter(events -> events.size() < broadcaster.getQueueSize());
+            if (missed.isPresent()) {
+                log.debug("Replaying {} stream events after {} for {}", missed.get().size(), since.get(), projectIds);
+                SseBroadcaster.Subscription subscription = broadcaster.subscribe(emitter, topics);
+                missed.get().forEach(event -> subscription.send(toSseEvent(event)));
+                return ResponseEntity.ok(emitter);
             }
-        } catch (IOException e) {
-            emitter.completeWithError(e);
-            removeEmitter(projectId, emitter);
+        }
+
+        // Initial PUSH of the current state of every project
+        long mark = streamBuffer.getLastId();
+        List<byte[]> states = new ArrayList<>();
+        for (String projectId : projectIds) {
+            ProjectPayloadCache.Payload payload = streamPayload(projectId, view);
+            if (payload == null) {
+                // Environment removed in the meantime
+                return ResponseEntity.notFound().build();
+            }
+            states.add(payload.json());
+        }
+        synchronized (streamLock) {
+            SseBroadcaster.Subscription subscription = broadcaster.subscribe(emitter, topics);
+            states.forEach(state -> subscription.send(
+                    SseEmitter.event().id(Long.toString(mark)).name(FULL_EVENT).data(state)));
+            // Changes committed while the state was loaded
+            streamBuffer.getEventsSince(mark, streams)
+                    .ifPresent(events -> events.forEach(event -> subscription.send(toSseEvent(event))));
         }
 
         return ResponseEntity.ok(emitter);
     }
 
-    public void notifyClients(String projectId) {
-        if (!sseEnabled) {
-            return;
+    /**
+     * An environment view of a project published to multiplexed streams.
+     * Guarded by the stream lock.
+     */
+    private static final class StreamView {
+        // Last event ID before the view was first subscribed to; its events are buffered from then on
+        private final long registeredAt;
+        // ID of the last event published, the view is replayable until it leaves the buffer
+        private long lastEventId;
+        // Subscriptions in progress, not subscribed to the broadcaster yet
+        private int pending;
+
+        private StreamView(long registeredAt) {
+            this.registeredAt = registeredAt;
+            this.lastEventId = registeredAt;
         }
+    }
 
-        List<SseEmitter> projectEmitters = emitters.get(projectId);
-        if (projectEmitters == null || projectEmitters.isEmpty()) {
-            return;
+    /**
+     * Starts publishing the events of an environment view of the projects, and
+     * keeps it until the subscription is done. Called holding the stream lock.
+     */
+    private List<StreamView> registerStreamView(List<String> projectIds, ClientFeaturesService.View view) {
+        long lastId = streamBuffer.getLastId();
+        List<StreamView> registered = new ArrayList<>();
+        for (String projectId : projectIds) {
+            StreamView streamView = streamViews.computeIfAbsent(projectId, k -> new HashMap<>())
+                    .computeIfAbsent(view, k -> new StreamView(lastId));
+            streamView.pending++;
+            registered.add(streamView);
         }
+        return registered;
+    }
+
+    /**
+     * Returns the environment views of a project to publish to. Views without
+     * subscribers are dropped once their events have left the replay buffer,
+     * as no client can resume them anymore. Called holding the stream lock.
+     */
+    private List<ClientFeaturesService.View> streamViewsOf(String projectId) {
+        Map<ClientFeaturesService.View, StreamView> views = streamViews.get(projectId);
+        if (views == null) {
+            return List.of();
+        }
+        long floor = streamBuffer.getFloor();
+        views.entrySet().removeIf(entry -> entry.getValue().pending == 0
+                && entry.getValue().lastEventId <= floor
+                && !broadcaster.hasSubscribers(streamTopic(streamOf(projectId, entry.getKey()))));
+        if (views.isEmpty()) {
+            streamViews.remove(projectId);
+        }
+        return new ArrayList<>(views.keySet());
+    }
+
+    @PostConstruct
+    void registerStreamListener() {
+        payloadCache.setLoader(this::buildFeaturesResponse);
+        streamTransaction = new TransactionTemplate(transactionManager);
+        streamTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        streamTransaction.setReadOnly(true);
+        streamCoalescer = new ChangeCoalescer("unchain-sse-coalescer", Duration.ofMillis(coalesceWindowMs),
+                Duration.ofMillis(coalesceMaxDelayMs),
+                (projectId, featureNames) -> broadcaster.submit(() -> publishStreamEvent(projectId, featureNames)));
+        revisionService.addListener((projectId, featureName, revision) -> {
+            if (sseEnabled) {
+                streamCoalescer.add(projectId, featureName);
+            }
+        });
+    }
+
+    @PreDestroy
+    void closeStreamCoalescer() {
+        streamCoalescer.close();
+    }
+
+    /**
+     * Sends the coalesced changes of a project to its streams. Runs on the
+     * broadcaster's publishing thread, so the writer of the change does not pay
+     * for loading and serializing the new state.
+     */
+    private void publishStreamEvent(String projectId, Set<String> featureNames) {
+        // Runs after commit, so the state has to be read in a transaction of its own
+        streamTransaction.executeWithoutResult(status -> {
+            if (broadcaster.hasSubscribers(projectTopic(projectId))) {
+                broadcaster.broadcast(projectTopic(projectId),
+                        SseEmitter.event().data(payloadCache.get(projectId).json()));
+            }
 
-        // Fetch latest state
-        GetFeaturesByProject200Response featuresResponse = getFeaturesByProject(projectId).getBody();
-        if (featuresResponse == null)
-            return;
-
-        List<SseEmitter> deadEmitters = new java.util.ArrayList<>();
-        projectEmitters.forEach(emitter -> {
-            try {
-                emitter.send(featuresResponse);
-            } catch (IOException e) {
-                deadEmitters.add(emitter);
+            // Read the revision first, so the events never claim more than they carry
+            long revision = revisionService.getRevision(projectId);
+            List<Feature> features = featureNames == null ? null
+                    : featureReadModel.getFeaturesByName(featureNames).stream()
+                            .filter(f -> projectId.equals(f.getProject()))
+                            .collect(Collectors.toList());
+            publishStreamEvent(projectId, null, featureNames, features, revision);
+
+            List<ClientFeaturesService.View> views;
+            synchronized (streamLock) {
+                if (featureNames == null && !projectRepository.existsById(projectId)) {
+                    // Project deleted
+                    streamViews.remove(projectId);
+                }
+                views = streamViewsOf(projectId);
             }
+            // Published without subscribers too, so reconnecting clients can resume
+            views.forEach(view -> publishStreamEvent(projectId, view, featureNames, features, revision));
         });
+    }
 
-        if (!deadEmitters.isEmpty()) {
-            projectEmitters.removeAll(deadEmitters);
+    /**
+     * Sends the changes of a project to the streams of a view of it.
+     *
+     * @param view     the environment view, or {@code null} for all environments
+     * @param features the current state of the changed features that still exist
+     */
+    private void publishStreamEvent(String projectId, ClientFeaturesService.View view, Set<String> featureNames,
+            List<Feature> features, long revision) {
+        String name;
+        byte[] json;
+        if (featureNames == null) {
+            ProjectPayloadCache.Payload payload = streamPayload(projectId, view);
+            if (payload == null) {
+                // Environment removed
+                synchronized (streamLock) {
+                    Map<ClientFeaturesService.View, StreamView> views = streamViews.get(projectId);
+                    if (views != null) {
+                        views.remove(view);
+                    }
+                }
+                return;
+            }
+            name = FULL_EVENT;
+            json = payload.json();
+        } else {
+            boolean empty;
+            Object data;
+            if (view == null) {
+                ProjectFeatures projectFeatures = buildStreamEventData(projectId, featureNames, features, revision);
+                empty = projectFeatures.getFeatures().isEmpty();
+                data = projectFeatures;
+            } else {
+                ClientFeatures clientFeatures = clientFeaturesService.getChanges(projectId, view, features,
+                        featureNames, revision);
+                empty = clientFeatures.getFeatures().isEmpty();
+                data = clientFeatures;
+            }
+            name = featureNames.size() > 1 ? CHANGED_EVENT : empty ? DELETED_EVENT : UPSERTED_EVENT;
+            json = toJson(data);
+        }
+        String stream = streamOf(projectId, view);
+        synchronized (streamLock) {
+            StreamEvent event = streamBuffer.append(stream, name, json);
+            broadcaster.broadcast(streamTopic(stream), toSseEvent(event));
+            StreamView streamView = view == null ? null
+                    : streamViews.getOrDefault(projectId, Map.of()).get(view);
+            if (streamView != null) {
+                streamView.lastEventId = event.id();
+            }
         }
     }
 
-    private void removeEmitter(String projectId, SseEmitter emitter) {
-        List<SseEmitter> projectEmitters = emitters.get(projectId);
-        if (projectEmitters != null) {
-            projectEmitters.remove(emitter);
+    /**
+     * Returns the full state of a project as sent on the multiplexed streams of
+     * a view, from the payload cache, or {@code null} if the view's environment
+     * does not exist.
+     */
+    private ProjectPayloadCache.Payload streamPayload(String projectId, ClientFeaturesService.View view) {
+        if (view != null) {
+            return clientFeaturesService.getFeatures(projectId, view);
         }
+        return payloadCache.get(projectId, STREAM_VIEW,
+                (id, revision) -> toProjectFeatures(id, buildFeaturesResponse(id, revision)));
+    }
+
+    private ProjectFeatures buildStreamEventData(String projectId, Set<String> featureNames, List<Feature> features,
+            long revision) {
+        Set<String> present = features.stream().map(Feature::getName).collect(Collectors.toSet());
+        ProjectFeatures data = new ProjectFeatures();
+        data.setProjectId(projectId);
+        data.setRevision(revision);
+        data.setFeatures(features);
+        data.setDeleted(featureNames.stream().filter(name -> !present.contains(name)).sorted()
+                .collect(Collectors.toList()));
+        return data;
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(StreamEvent event) {
+        return SseEmitter.event().id(Long.toString(event.id())).name(event.name()).data(event.data());
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stream event", e);
+        }
+    }
+
+    // Topic of the single-project streams
+    private static String projectTopic(String projectId) {
+        return "project:" + projectId;
+    }
+
+    // Stream of the events of a project, or of an environment view of it
+    private static String streamOf(String projectId, ClientFeaturesService.View view) {
+        return view == null ? projectId : projectId + "#" + view.name();
+    }
+
+    // Topic of the multiplexed streams
+    private static String streamTopic(String stream) {
+        return "stream:" + stream;
+    }
+
+    private static Optional<Long> parseEventId(String lastEventId) {
+        try {
+            return Optional.of(Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ProjectFeatures toProjectFeatures(String projectId, GetFeaturesByProject200Response featuresResponse) {
+        ProjectFeatures projectFeatures = new ProjectFeatures();
+        projectFeatures.setProjectId(projectId);
+        projectFeatures.setFeatures(featuresResponse.getFeatures());
+        projectFeatures.setRevision(featuresResponse.getRevision());
+        return projectFeatures;
     }
 }
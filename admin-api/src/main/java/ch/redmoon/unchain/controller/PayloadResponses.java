@@ -0,0 +1,67 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.controller;
+
+import ch.redmoon.unchain.service.ProjectPayloadCache;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Builds the responses of SDK payloads served from the
+ * {@link ProjectPayloadCache}.
+ */
+@UtilityClass
+class PayloadResponses {
+
+    /**
+     * Answers with a cached payload, gzipped if the client accepts it. The
+     * generated APIs declare the response type, but the body is written as-is
+     * by the byte array message converter.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ResponseEntity<T> ok(ProjectPayloadCache.Payload payload, String acceptEncoding,
+            int pollIntervalSeconds) {
+        boolean gzip = payload.gzip() != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(payload.etag())
+                .header("Cache-Control", "max-age=" + pollIntervalSeconds)
+                .header("X-Unchain-Poll-Interval", String.valueOf(pollIntervalSeconds))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            // Already compressed, which keeps the server from compressing it again
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return (ResponseEntity<T>) (ResponseEntity<?>) builder.body(gzip ? payload.gzip() : payload.json());
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -30,6 +30,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import ch.redmoon.unchain.exception.BusinessRuleViolationException;
+import ch.redmoon.unchain.service.FeatureRevisionService;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -43,6 +44,7 @@ public class ProjectsController implements ProjectsApi {
 
     private final ProjectRepository projectRepository;
     private final ch.redmoon.unchain.repository.ChangeRequestRepository changeRequestRepository;
+    private final FeatureRevisionService revisionService;
 
     @Override
     public ResponseEntity<ListProjects200Response> listProjects(Optional<Boolean> archived) {
@@ -74,6 +76,8 @@ public class ProjectsController implements ProjectsApi {
         entity.setArchived(false);
 
         ProjectEntity saved = projectRepository.save(entity);
+        // Replaces payloads cached while the project did not exist
+        revisionService.markChanged(saved.getId(), null);
         return ResponseEntity.status(HttpStatus.CREATED).body(mapToDto(saved));
     }
 
@@ -116,6 +120,7 @@ public class ProjectsController implements ProjectsApi {
             throw new BusinessRuleViolationException("Cannot delete project because it has pending change requests.");
         }
         projectRepository.deleteById(projectId);
+        revisionService.removeProject(projectId);
         return ResponseEntity.ok().build();
     }
 
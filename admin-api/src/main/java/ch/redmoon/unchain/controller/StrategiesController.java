@@ -30,6 +30,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ch.redmoon.unchain.exception.BusinessRuleViolationException;
+import ch.redmoon.unchain.service.FeatureRevisionService;
 import ch.redmoon.unchain.entity.ChangeRequestState;
 
 import java.util.ArrayList;
@@ -49,6 +50,7 @@ public class StrategiesController implements StrategiesApi {
     private final FeatureRepository featureRepository;
     private final EnvironmentRepository environmentRepository;
     private final ch.redmoon.unchain.repository.ChangeRequestRepository changeRequestRepository;
+    private final FeatureRevisionService revisionService;
 
     @Override
     public ResponseEntity<ListStrategies200Response> listStrategies() {
@@ -241,6 +243,7 @@ public class StrategiesController implements StrategiesApi {
         }
 
         FeatureStrategyEntity saved = featureStrategyRepository.save(featureStrategy);
+        revisionService.markChanged(projectId, featureName);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(mapToStrategyDto(saved));
     }
@@ -256,6 +259,7 @@ public class StrategiesController implements StrategiesApi {
         try {
             Integer id = Integer.parseInt(strategyId);
             featureStrategyRepository.deleteById(id);
+            revisionService.markChanged(projectId, featureName);
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
@@ -395,6 +399,7 @@ public class StrategiesController implements StrategiesApi {
         }
 
         featureStrategyRepository.save(featureStrategy);
+        revisionService.markChanged(projectId, featureName);
         return ResponseEntity.ok().build();
     }
 
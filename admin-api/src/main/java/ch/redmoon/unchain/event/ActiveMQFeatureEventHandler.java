@@ -16,7 +16,7 @@
 
 package ch.redmoon.unchain.event;
 
-import ch.redmoon.unchain.controller.FeaturesController;
+import ch.redmoon.unchain.service.FeatureRevisionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,12 +27,11 @@ public class ActiveMQFeatureEventHandler implements FeatureEventHandler {
     // In a real implementation, you would inject a JmsTemplate or similar
     // private final JmsTemplate jmsTemplate;
 
-    // We need a way to notify the controller or service that manages SSE
-    // connections.
-    // Ideally, this class listens to MQ and calls the controller.
+    // Marking the project as changed notifies the SSE streams of the project,
+    // so this class only needs to listen to MQ.
     // For this sample, we just log that we would be listening.
 
-    private final FeaturesController featuresController;
+    private final FeatureRevisionService revisionService;
 
     // @JmsListener(destination = "feature-updates") // Example annotation
     public void onMessage(String message) {
@@ -44,8 +43,8 @@ public class ActiveMQFeatureEventHandler implements FeatureEventHandler {
     @Override
     public void onFeatureUpdate(String projectId) {
         log.info("Received external feature update event for project: {}", projectId);
-        if (featuresController != null) {
-            featuresController.notifyClients(projectId);
+        if (revisionService != null) {
+            revisionService.markChanged(projectId, null);
         }
     }
 }
@@ -16,11 +16,21 @@
 
 package ch.redmoon.unchain.event;
 
+import ch.redmoon.unchain.service.ChangeCoalescer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
+import java.time.Duration;
+
+/**
+ * Notifies other instances of feature changes. Changes are coalesced per
+ * project, so a burst of edits sends a single update message.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
@@ -29,33 +39,53 @@ public class FeatureEventSenderObserver implements UnchainEventObserver {
 
     private final FeatureEventSender featureEventSender;
 
+    @Value("${unchain.events.coalesce-window-ms:150}")
+    private long coalesceWindowMs;
+
+    @Value("${unchain.events.coalesce-max-delay-ms:1000}")
+    private long coalesceMaxDelayMs;
+
+    private ChangeCoalescer coalescer;
+
+    @PostConstruct
+    void init() {
+        coalescer = new ChangeCoalescer("unchain-sender-coalescer", Duration.ofMillis(coalesceWindowMs),
+                Duration.ofMillis(coalesceMaxDelayMs),
+                (projectId, featureNames) -> featureEventSender.sendFeatureUpdate(projectId));
+    }
+
+    @PreDestroy
+    void close() {
+        coalescer.close();
+    }
+
     @Override
     public void onFeatureEnabled(String projectId, String featureName, String environment, String user) {
         log.debug("Sending feature update to sender for feature enabled: {}", featureName);
-        featureEventSender.sendFeatureUpdate(projectId);
+        coalescer.add(projectId, featureName);
     }
 
     @Override
     public void onFeatureDisabled(String projectId, String featureName, String environment, String user) {
         log.debug("Sending feature update to sender for feature disabled: {}", featureName);
-        featureEventSender.sendFeatureUpdate(projectId);
+        coalescer.add(projectId, featureName);
     }
 
     @Override
     public void onFeatureCreated(String projectId, String featureName, String user) {
         log.debug("Sending feature update to sender for feature created: {}", featureName);
-        featureEventSender.sendFeatureUpdate(projectId);
+        coalescer.add(projectId, featureName);
     }
 
     @Override
     public void onFeatureUpdated(String projectId, String featureName, String user) {
         log.debug("Sending feature update to sender for feature updated: {}", featureName);
-        featureEventSender.sendFeatureUpdate(projectId);
+        coalescer.add(projectId, featureName);
     }
 
     @Override
     public void onFeatureDeleted(String projectId, String featureName, String user) {
         log.debug("Sending feature update to sender for feature deleted: {}", featureName);
-        featureEventSender.sendFeatureUpdate(projectId);
+        coalescer.add(projectId, featureName);
     }
 }
@@ -1,64 +0,0 @@
-/*
-   Copyright 2026 Philipp Walther
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
-*/
-
-package ch.redmoon.unchain.event;
-
-import ch.redmoon.unchain.controller.FeaturesController;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.stereotype.Component;
-
-@Component
-@Slf4j
-@ConditionalOnProperty(name = "unchain.sse.enabled", havingValue = "true")
-public class SseFeatureEventObserver implements UnchainEventObserver {
-
-    private final FeaturesController featuresController;
-
-    public SseFeatureEventObserver(@org.springframework.context.annotation.Lazy FeaturesController featuresController) {
-        this.featuresController = featuresController;
-    }
-
-    @Override
-    public void onFeatureEnabled(String projectId, String featureName, String environment, String user) {
-        log.debug("Notifying SSE clients for feature enabled: {}", featureName);
-        featuresController.notifyClients(projectId);
-    }
-
-    @Override
-    public void onFeatureDisabled(String projectId, String featureName, String environment, String user) {
-        log.debug("Notifying SSE clients for feature disabled: {}", featureName);
-        featuresController.notifyClients(projectId);
-    }
-
-    @Override
-    public void onFeatureCreated(String projectId, String featureName, String user) {
-        log.debug("Notifying SSE clients for feature created: {}", featureName);
-        featuresController.notifyClients(projectId);
-    }
-
-    @Override
-    public void onFeatureUpdated(String projectId, String featureName, String user) {
-        log.debug("Notifying SSE clients for feature updated: {}", featureName);
-        featuresController.notifyClients(projectId);
-    }
-
-    @Override
-    public void onFeatureDeleted(String projectId, String featureName, String user) {
-        log.debug("Notifying SSE clients for feature deleted: {}", featureName);
-        featuresController.notifyClients(projectId);
-    }
-}
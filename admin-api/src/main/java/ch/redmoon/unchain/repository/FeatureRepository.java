@@ -22,6 +22,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -34,4 +35,16 @@ public interface FeatureRepository extends JpaRepository<FeatureEntity, String>
     List<FeatureEntity> findByProjectIdAndStale(String projectId, boolean stale);
 
     long countByEnvironmentsName(String environmentName);
+
+    @Query("SELECT f FROM FeatureEntity f JOIN FETCH f.project LEFT JOIN FETCH f.environments "
+            + "WHERE f.project.id IN :projectIds")
+    List<FeatureEntity> findWithEnvironmentsByProjectIdIn(@Param("projectIds") Collection<String> projectIds);
+
+    @Query("SELECT f FROM FeatureEntity f JOIN FETCH f.project LEFT JOIN FETCH f.environments "
+            + "WHERE f.name IN :names")
+    List<FeatureEntity> findWithEnvironmentsByNameIn(@Param("names") Collection<String> names);
+
+    // Initializes the variants of the already loaded features
+    @Query("SELECT f FROM FeatureEntity f LEFT JOIN FETCH f.variants WHERE f.name IN :names")
+    List<FeatureEntity> fetchVariantsByNameIn(@Param("names") Collection<String> names);
 }
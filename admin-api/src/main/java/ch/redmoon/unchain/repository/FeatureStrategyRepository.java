@@ -18,8 +18,11 @@ package ch.redmoon.unchain.repository;
 
 import ch.redmoon.unchain.entity.FeatureStrategyEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,4 +30,17 @@ public interface FeatureStrategyRepository extends JpaRepository<FeatureStrategy
     List<FeatureStrategyEntity> findByFeatureNameAndEnvironmentName(String featureName, String environmentName);
 
     boolean existsByStrategyName(String strategyName);
+
+    @Query("SELECT s FROM FeatureStrategyEntity s LEFT JOIN FETCH s.strategyDefinition "
+            + "LEFT JOIN FETCH s.constraints WHERE s.featureName IN :featureNames ORDER BY s.id")
+    List<FeatureStrategyEntity> findWithConstraintsByFeatureNameIn(
+            @Param("featureNames") Collection<String> featureNames);
+
+    // Initializes the parameters of the already loaded strategies
+    @Query("SELECT s FROM FeatureStrategyEntity s LEFT JOIN FETCH s.parameters WHERE s.featureName IN :featureNames")
+    List<FeatureStrategyEntity> fetchParametersByFeatureNameIn(@Param("featureNames") Collection<String> featureNames);
+
+    // Initializes the variants of the already loaded strategies
+    @Query("SELECT s FROM FeatureStrategyEntity s LEFT JOIN FETCH s.variants WHERE s.featureName IN :featureNames")
+    List<FeatureStrategyEntity> fetchVariantsByFeatureNameIn(@Param("featureNames") Collection<String> featureNames);
 }
@@ -18,9 +18,19 @@ package ch.redmoon.unchain.repository;
 
 import ch.redmoon.unchain.entity.StrategyConstraintEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface StrategyConstraintRepository extends JpaRepository<StrategyConstraintEntity, Integer> {
     boolean existsByContextName(String contextName);
+
+    // Initializes the values of the already loaded constraints
+    @Query("SELECT c FROM StrategyConstraintEntity c LEFT JOIN FETCH c.values "
+            + "WHERE c.featureStrategy.featureName IN :featureNames")
+    List<StrategyConstraintEntity> fetchValuesByFeatureNameIn(@Param("featureNames") Collection<String> featureNames);
 }
@@ -3,6 +3,7 @@ package ch.redmoon.unchain.scheduler;
 import ch.redmoon.unchain.entity.FeatureEntity;
 import ch.redmoon.unchain.repository.FeatureMetricRepository;
 import ch.redmoon.unchain.repository.FeatureRepository;
+import ch.redmoon.unchain.service.FeatureRevisionService;
 import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,14 +21,17 @@ public class FeatureStalenessScheduler {
 
     private final FeatureRepository featureRepository;
     private final FeatureMetricRepository metricsRepository;
+    private final FeatureRevisionService revisionService;
     private final int staleAfterDays;
 
     public FeatureStalenessScheduler(
             FeatureRepository featureRepository,
             FeatureMetricRepository metricsRepository,
+            FeatureRevisionService revisionService,
             @Value("${unchain.features.stale-after-days:3}") int staleAfterDays) {
         this.featureRepository = featureRepository;
         this.metricsRepository = metricsRepository;
+        this.revisionService = revisionService;
         this.staleAfterDays = staleAfterDays;
     }
 
@@ -60,12 +64,14 @@ public class FeatureStalenessScheduler {
             if (shouldBeStale && !isCurrentlyStale) {
                 feature.setStale(true);
                 featureRepository.save(feature);
+                revisionService.markChanged(feature.getProject().getId(), feature.getName());
                 markedStale++;
                 log.info("Feature '{}' in project '{}' marked as STALE", feature.getName(),
                         feature.getProject().getId());
             } else if (!shouldBeStale && isCurrentlyStale) {
                 feature.setStale(false);
                 featureRepository.save(feature);
+                revisionService.markChanged(feature.getProject().getId(), feature.getName());
                 markedActive++;
                 log.info("Feature '{}' in project '{}' marked as ACTIVE", feature.getName(),
                         feature.getProject().getId());
@@ -0,0 +1,138 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges change notifications per project, so that a burst of edits, e.g. an
+ * applied change request, is handled once instead of once per edit.
+ * <p>
+ * A project is flushed when it has been quiet for the window, or at the latest
+ * after the max delay since its first pending change, so a steady stream of
+ * edits cannot hold notifications back forever. A window of zero disables
+ * coalescing and flushes every change right away.
+ */
+@Slf4j
+public class ChangeCoalescer implements AutoCloseable {
+
+    /**
+     * Receives the merged changes of a project.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param featureNames the changed features, or {@code null} if the whole
+         *                     project changed
+         */
+        void flush(String projectId, Set<String> featureNames);
+    }
+
+    private static final class Pending {
+        private final long firstAt;
+        private long lastAt;
+        // null once the whole project changed
+        private Set<String> featureNames = new HashSet<>();
+
+        private Pending(long now) {
+            this.firstAt = now;
+            this.lastAt = now;
+        }
+    }
+
+    private final Handler handler;
+    private final long windowNanos;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    public ChangeCoalescer(String name, Duration window, Duration maxDelay, Handler handler) {
+        this.handler = handler;
+        this.windowNanos = window.toNanos();
+        this.maxDelayNanos = Math.max(maxDelay.toNanos(), windowNanos);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name(name).factory());
+    }
+
+    /**
+     * Records a change of a feature, or of the whole project if the feature name
+     * is {@code null}.
+     */
+    public void add(String projectId, String featureName) {
+        if (windowNanos <= 0) {
+            flush(projectId, featureName == null ? null : Set.of(featureName));
+            return;
+        }
+
+        long now = System.nanoTime();
+        synchronized (pending) {
+            Pending changes = pending.get(projectId);
+            if (changes == null) {
+                changes = new Pending(now);
+                pending.put(projectId, changes);
+                scheduler.schedule(() -> check(projectId), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            changes.lastAt = now;
+            if (featureName == null) {
+                changes.featureNames = null;
+            } else if (changes.featureNames != null) {
+                changes.featureNames.add(featureName);
+            }
+        }
+    }
+
+    private void check(String projectId) {
+        long now = System.nanoTime();
+        Pending changes;
+        synchronized (pending) {
+            changes = pending.get(projectId);
+            if (changes == null) {
+                return;
+            }
+            long quietAt = changes.lastAt + windowNanos;
+            long deadline = changes.firstAt + maxDelayNanos;
+            if (now - quietAt < 0 && now - deadline < 0) {
+                long delay = Math.min(quietAt, deadline) - now;
+                scheduler.schedule(() -> check(projectId), delay, TimeUnit.NANOSECONDS);
+                return;
+            }
+            pending.remove(projectId);
+        }
+        flush(projectId, changes.featureNames);
+    }
+
+    private void flush(String projectId, Set<String> featureNames) {
+        try {
+            handler.flush(projectId, featureNames);
+        } catch (Exception e) {
+            log.error("Failed to flush changes of project {}", projectId, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -44,6 +44,7 @@ public class ChangeRequestService {
     private final FeatureStrategyRepository featureStrategyRepository;
     private final ObjectMapper objectMapper;
     private final AuditLogService auditLogService;
+    private final FeatureRevisionService revisionService;
 
     @Transactional
     public void applyChangeRequest(Integer changeRequestId) {
@@ -62,6 +63,7 @@ public class ChangeRequestService {
 
         for (ChangeRequestChangeEntity change : changes) {
             applyChange(cr.getProjectId(), cr.getEnvironment(), change);
+            revisionService.markChanged(cr.getProjectId(), change.getFeatureName());
 
             Map<String, Object> summary = new java.util.HashMap<>();
             summary.put("action", change.getAction());
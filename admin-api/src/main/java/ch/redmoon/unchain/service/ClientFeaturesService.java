@@ -0,0 +1,151 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.api.model.ClientFeature;
+import ch.redmoon.unchain.api.model.ClientFeatures;
+import ch.redmoon.unchain.api.model.ClientStrategy;
+import ch.redmoon.unchain.api.model.Feature;
+import ch.redmoon.unchain.api.model.FeatureEnvironment;
+import ch.redmoon.unchain.api.model.Strategy;
+import ch.redmoon.unchain.repository.EnvironmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the features of a single environment as the SDKs get them, with only
+ * the fields needed to evaluate them, for both fetches and streams.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClientFeaturesService {
+
+    /**
+     * The features of one environment, optionally only the enabled ones.
+     */
+    public record View(String environment, boolean enabledOnly) {
+
+        /**
+         * Name of the view in the payload cache.
+         */
+        public String name() {
+            return "environment:" + environment + (enabledOnly ? ":enabled" : "");
+        }
+    }
+
+    private final EnvironmentRepository environmentRepository;
+    private final FeatureReadModel featureReadModel;
+    private final ProjectPayloadCache payloadCache;
+
+    /**
+     * Returns the cached features of a project in a view, or {@code null} if
+     * the view's environment does not exist.
+     */
+    public ProjectPayloadCache.Payload getFeatures(String projectId, View view) {
+        return payloadCache.get(projectId, view.name(), (id, revision) -> buildFeatures(id, view, revision));
+    }
+
+    /**
+     * Returns the features changed since a revision. Changed features that are
+     * gone, or not part of the view, are listed as deleted.
+     */
+    public ClientFeatures getChanges(String projectId, View view, FeatureRevisionService.Changes changes) {
+        return getChanges(projectId, view, featureReadModel.getFeaturesByName(changes.featureNames()).stream()
+                .filter(f -> projectId.equals(f.getProject()))
+                .collect(Collectors.toList()), changes.featureNames(), changes.revision());
+    }
+
+    /**
+     * Returns the given features of a project, already read, as changed since
+     * a revision.
+     *
+     * @param features     the current state of those changed features that still exist
+     * @param featureNames all changed features
+     */
+    public ClientFeatures getChanges(String projectId, View view, Collection<Feature> features,
+            Set<String> featureNames, long revision) {
+        List<ClientFeature> upserted = toClientFeatures(features, view);
+        // Features disabled since are gone for clients that only get the enabled ones
+        Set<String> deleted = new TreeSet<>(featureNames);
+        upserted.forEach(f -> deleted.remove(f.getName()));
+
+        ClientFeatures response = new ClientFeatures();
+        response.setProjectId(projectId);
+        response.setEnvironment(view.environment());
+        response.setFeatures(upserted);
+        response.setDeleted(new ArrayList<>(deleted));
+        response.setRevision(revision);
+        response.setDelta(true);
+        return response;
+    }
+
+    // Returns null for unknown environments, so they are not cached
+    private ClientFeatures buildFeatures(String projectId, View view, long revision) {
+        if (!environmentRepository.existsById(view.environment())) {
+            return null;
+        }
+        ClientFeatures response = new ClientFeatures();
+        response.setProjectId(projectId);
+        response.setEnvironment(view.environment());
+        response.setFeatures(toClientFeatures(featureReadModel.getFeatures(projectId), view));
+        response.setRevision(revision);
+        response.setDelta(false);
+        return response;
+    }
+
+    private List<ClientFeature> toClientFeatures(Collection<Feature> features, View view) {
+        return features.stream()
+                .map(f -> toClientFeature(f, view.environment()))
+                .filter(f -> !view.enabledOnly() || Boolean.TRUE.equals(f.getEnabled()))
+                .collect(Collectors.toList());
+    }
+
+    private ClientFeature toClientFeature(Feature feature, String environment) {
+        ClientFeature dto = new ClientFeature();
+        dto.setName(feature.getName());
+        dto.setImpressionData(feature.getImpressionData());
+        dto.setVariants(feature.getVariants());
+
+        // Features neither enabled nor with strategies in the environment have no entry for it
+        Optional<FeatureEnvironment> env = feature.getEnvironments().stream()
+                .filter(e -> environment.equals(e.getName()))
+                .findFirst();
+        dto.setEnabled(env.map(FeatureEnvironment::getEnabled).orElse(false));
+        dto.setStrategies(env.map(e -> e.getStrategies().stream()
+                .map(this::toClientStrategy)
+                .collect(Collectors.toList()))
+                .orElseGet(ArrayList::new));
+        return dto;
+    }
+
+    private ClientStrategy toClientStrategy(Strategy strategy) {
+        ClientStrategy dto = new ClientStrategy();
+        dto.setName(strategy.getName());
+        dto.setConstraints(strategy.getConstraints());
+        dto.setParameters(strategy.getParameters());
+        dto.setVariants(strategy.getVariants());
+        return dto;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.api.model.Constraint;
+import ch.redmoon.unchain.api.model.Feature;
+import ch.redmoon.unchain.api.model.FeatureEnvironment;
+import ch.redmoon.unchain.api.model.Strategy;
+import ch.redmoon.unchain.api.model.StrategyParameter;
+import ch.redmoon.unchain.api.model.Variant;
+import ch.redmoon.unchain.api.model.VariantPayload;
+import ch.redmoon.unchain.entity.EnvironmentEntity;
+import ch.redmoon.unchain.entity.FeatureEntity;
+import ch.redmoon.unchain.entity.FeatureStrategyEntity;
+import ch.redmoon.unchain.entity.FeatureStrategyVariantEntity;
+import ch.redmoon.unchain.entity.FeatureVariantEntity;
+import ch.redmoon.unchain.entity.StrategyConstraintValueEntity;
+import ch.redmoon.unchain.repository.EnvironmentRepository;
+import ch.redmoon.unchain.repository.FeatureRepository;
+import ch.redmoon.unchain.repository.FeatureStrategyRepository;
+import ch.redmoon.unchain.repository.StrategyConstraintRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads features with their environments, strategies and variants as API
+ * models. The whole graph is loaded in a fixed number of set-based queries,
+ * however many features and environments there are, and assembled in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class FeatureReadModel {
+
+    private final FeatureRepository featureRepository;
+    private final EnvironmentRepository environmentRepository;
+    private final FeatureStrategyRepository featureStrategyRepository;
+    private final StrategyConstraintRepository strategyConstraintRepository;
+
+    /**
+     * Returns the features of a project, each with the environments it is
+     * enabled in or has strategies in.
+     */
+    public List<Feature> getFeatures(String projectId) {
+        return getFeatures(List.of(projectId)).getOrDefault(projectId, List.of());
+    }
+
+    /**
+     * Returns the features of several projects, keyed by project. Projects
+     * without features are left out.
+     */
+    public Map<String, List<Feature>> getFeatures(Collection<String> projectIds) {
+        List<FeatureEntity> entities = featureRepository.findWithEnvironmentsByProjectIdIn(projectIds);
+        return assemble(entities, false).stream()
+                .collect(Collectors.groupingBy(Feature::getProject, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Returns the named features of any project, like {@link #getFeatures(String)}.
+     * Names without a feature are left out.
+     */
+    public List<Feature> getFeaturesByName(Collection<String> featureNames) {
+        if (featureNames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return assemble(featureRepository.findWithEnvironmentsByNameIn(featureNames), false);
+    }
+
+    /**
+     * Returns a feature with all environments, including those it is neither
+     * enabled in nor has strategies in.
+     */
+    public Optional<Feature> getFullFeature(String featureName) {
+        return assemble(featureRepository.findWithEnvironmentsByNameIn(List.of(featureName)), true).stream()
+                .findFirst();
+    }
+
+    private List<Feature> assemble(List<FeatureEntity> entities, boolean allEnvironments) {
+        if (entities.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> names = entities.stream().map(FeatureEntity::getName).collect(Collectors.toSet());
+        // These only initialize collections of the entities loaded above, their results are not needed
+        featureRepository.fetchVariantsByNameIn(names);
+        List<FeatureStrategyEntity> strategies = featureStrategyRepository.findWithConstraintsByFeatureNameIn(names);
+        if (!strategies.isEmpty()) {
+            featureStrategyRepository.fetchParametersByFeatureNameIn(names);
+            featureStrategyRepository.fetchVariantsByFeatureNameIn(names);
+            strategyConstraintRepository.fetchValuesByFeatureNameIn(names);
+        }
+
+        // feature -> environment -> strategies
+        Map<String, Map<String, List<Strategy>>> strategiesByFeature = new HashMap<>();
+        for (FeatureStrategyEntity strategy : strategies) {
+            strategiesByFeature.computeIfAbsent(strategy.getFeatureName(), k -> new HashMap<>())
+                    .computeIfAbsent(strategy.getEnvironmentName(), k -> new ArrayList<>())
+                    .add(mapToStrategyDto(strategy));
+        }
+
+        List<EnvironmentEntity> environments = environmentRepository.findAll();
+        return entities.stream()
+                .map(entity -> mapToDto(entity, environments,
+                        strategiesByFeature.getOrDefault(entity.getName(), Map.of()), allEnvironments))
+                .collect(Collectors.toList());
+    }
+
+    private Feature mapToDto(FeatureEntity entity, List<EnvironmentEntity> environments,
+            Map<String, List<Strategy>> strategiesByEnvironment, boolean allEnvironments) {
+        Feature dto = new Feature();
+        dto.setName(entity.getName());
+        dto.setDescription(entity.getDescription());
+        dto.setType(entity.getType());
+        dto.setStale(entity.isStale());
+        dto.setImpressionData(entity.isImpressionData());
+        dto.setCreatedAt(entity.getCreatedAt());
+        dto.setProject(entity.getProject().getId());
+        dto.setVariants(mapVariants(entity.getVariants()));
+
+        Set<String> enabledIn = entity.getEnvironments().stream()
+                .map(EnvironmentEntity::getName)
+                .collect(Collectors.toSet());
+        List<FeatureEnvironment> featureEnvs = new ArrayList<>();
+        for (EnvironmentEntity env : environments) {
+            boolean isEnabled = enabledIn.contains(env.getName());
+            List<Strategy> envStrategies = strategiesByEnvironment.getOrDefault(env.getName(), new ArrayList<>());
+            // Summaries only include environments that are enabled or have strategies
+            if (allEnvironments || isEnabled || !envStrategies.isEmpty()) {
+                FeatureEnvironment fe = new FeatureEnvironment();
+                fe.setName(env.getName());
+                fe.setEnabled(isEnabled);
+                fe.setStrategies(envStrategies);
+                featureEnvs.add(fe);
+            }
+        }
+        dto.setEnvironments(featureEnvs);
+        return dto;
+    }
+
+    private Strategy mapToStrategyDto(FeatureStrategyEntity entity) {
+        Strategy dto = new Strategy();
+        dto.setId(entity.getId().toString());
+        dto.setName(entity.getStrategyName());
+
+        List<Constraint> constraints = entity.getConstraints().stream().map(c -> {
+            Constraint constraint = new Constraint();
+            constraint.setContextName(c.getContextName());
+            try {
+                constraint.setOperator(Constraint.OperatorEnum.fromValue(c.getOperator()));
+            } catch (Exception e) {
+            }
+            constraint.setCaseInsensitive(c.isCaseInsensitive());
+            constraint.setInverted(c.isInverted());
+            constraint.setValues(
+                    c.getValues().stream().map(StrategyConstraintValueEntity::getValue).collect(Collectors.toList()));
+            return constraint;
+        }).collect(Collectors.toList());
+        dto.setConstraints(constraints);
+
+        if (entity.getParameters() != null) {
+            List<StrategyParameter> params = entity.getParameters().stream().map(p -> {
+                StrategyParameter sp = new StrategyParameter();
+                sp.setName(p.getName());
+                sp.setValue(p.getValue());
+                return sp;
+            }).collect(Collectors.toList());
+            dto.setParameters(params);
+        }
+
+        dto.setVariants(mapStrategyVariants(entity.getVariants()));
+        return dto;
+    }
+
+    private List<Variant> mapStrategyVariants(List<FeatureStrategyVariantEntity> entities) {
+        if (entities == null)
+            return null;
+        return entities.stream()
+                .map(v -> mapVariant(v.getName(), v.getWeight(), v.getStickiness(), v.getPayloadType(),
+                        v.getPayloadValue()))
+                .collect(Collectors.toList());
+    }
+
+    private List<Variant> mapVariants(List<FeatureVariantEntity> entities) {
+        if (entities == null)
+            return null;
+        return entities.stream()
+                .map(v -> mapVariant(v.getName(), v.getWeight(), v.getStickiness(), v.getPayloadType(),
+                        v.getPayloadValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static Variant mapVariant(String name, Integer weight, String stickiness, String payloadType,
+            String payloadValue) {
+        Variant vd = new Variant();
+        vd.setName(name);
+        vd.setWeight(weight);
+        vd.setStickiness(stickiness);
+        if (payloadType != null) {
+            VariantPayload vp = new VariantPayload();
+            vp.setType(VariantPayload.TypeEnum.fromValue(payloadType));
+            vp.setValue(payloadValue);
+            vd.setPayload(vp);
+        }
+        return vd;
+    }
+}
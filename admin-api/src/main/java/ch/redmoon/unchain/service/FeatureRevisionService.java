@@ -0,0 +1,331 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.event.UnchainEventObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a revision per project so that SDK polling can be answered with
+ * {@code 304 Not Modified} without loading any feature data, and with only the
+ * features changed since a given revision.
+ * <p>
+ * Revisions live in memory only. They start at the wall clock time in
+ * microseconds at startup, so revisions keep increasing across restarts and a
+ * revision handed out by another instance or an earlier boot is never mistaken
+ * for one of this instance.
+ * <p>
+ * Only changed projects are tracked. All others share one untracked revision,
+ * so reads of any project ID, existing or not, do not add entries.
+ */
+@Service
+@Slf4j
+public class FeatureRevisionService implements UnchainEventObserver {
+
+    /**
+     * Features of a project changed after a revision. Names of deleted features
+     * are included.
+     */
+    public record Changes(long revision, Set<String> featureNames) {
+    }
+
+    /**
+     * Notified after a change was committed and the revision bumped.
+     */
+    public interface ChangeListener {
+        /**
+         * @param featureName the changed feature, or {@code null} if any feature
+         *                    of the project may have changed
+         * @param revision    revision of the project including the change
+         */
+        void onChanged(String projectId, String featureName, long revision);
+    }
+
+    private record Change(long revision, String featureName) {
+    }
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<String, ProjectRevisions> revisions = new ConcurrentHashMap<>();
+    // Revision of projects not changed since startup, or since they were removed
+    private final AtomicLong untrackedRevision = new AtomicLong(
+            TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    @Value("${unchain.sdk.delta-history-size:1000}")
+    private int historySize = 1000;
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public long getRevision(String projectId) {
+        ProjectRevisions project = revisions.get(projectId);
+        if (project == null) {
+            return untrackedRevision.get();
+        }
+        synchronized (project) {
+            return project.revision;
+        }
+    }
+
+    public String getETag(String projectId) {
+        return toETag(getRevision(projectId));
+    }
+
+    public String getETag(String projectId, String view) {
+        return toETag(getRevision(projectId), view);
+    }
+
+    /**
+     * Weak, as the same revision is served both plain and gzipped, and the
+     * servlet container does not compress responses with a strong ETag.
+     */
+    public static String toETag(long revision) {
+        return "W/\"" + Long.toString(revision, 36) + "\"";
+    }
+
+    /**
+     * ETag of a view of a project's payload, such as the features of one
+     * environment. Views differ at the same revision, so their tags do too.
+     *
+     * @param view name of the view, or an empty string for the full payload
+     */
+    public static String toETag(long revision, String view) {
+        if (view.isEmpty()) {
+            return toETag(revision);
+        }
+        return "W/\"" + Long.toString(revision, 36) + "-" + Integer.toUnsignedString(view.hashCode(), 36) + "\"";
+    }
+
+    /**
+     * Returns the features changed after the given revision, or empty if the
+     * revision is unknown or older than the retained history and the client has
+     * to resync the whole project.
+     */
+    public Optional<Changes> getChangesSince(String projectId, long sinceRevision) {
+        ProjectRevisions project = revisions.get(projectId);
+        if (project == null) {
+            long revision = untrackedRevision.get();
+            return sinceRevision == revision ? Optional.of(new Changes(revision, Set.of())) : Optional.empty();
+        }
+        synchronized (project) {
+            if (sinceRevision < project.floor || sinceRevision > project.revision) {
+                return Optional.empty();
+            }
+            Set<String> featureNames = new HashSet<>();
+            Iterator<Change> it = project.changes.descendingIterator();
+            while (it.hasNext()) {
+                Change change = it.next();
+                if (change.revision() <= sinceRevision) {
+                    break;
+                }
+                featureNames.add(change.featureName());
+            }
+            return Optional.of(new Changes(project.revision, featureNames));
+        }
+    }
+
+    /**
+     * Returns true if the given If-None-Match header value matches the ETag.
+     * Weak validators are compared by their opaque tag as per RFC 9110.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks a feature of a project as changed. When called inside a
+     * transaction, the revision is bumped only after commit so that a poll
+     * racing the write cannot cache the old payload under the new revision.
+     *
+     * @param featureName the changed feature, or {@code null} if any feature of
+     *                    the project may have changed; clients then resync the
+     *                    whole project
+     */
+    public void markChanged(String projectId, String featureName) {
+        afterCommit(() -> {
+            // Tracked from the untracked revision on, so deltas from it stay valid
+            ProjectRevisions project = revisions.computeIfAbsent(projectId,
+                    k -> new ProjectRevisions(untrackedRevision.get()));
+            long revision;
+            synchronized (project) {
+                if (featureName == null) {
+                    project.reset();
+                } else {
+                    project.record(featureName, historySize);
+                }
+                revision = project.revision;
+            }
+            log.debug("Feature revision bumped for {}/{}", projectId, featureName);
+            notifyListeners(projectId, featureName, revision);
+        });
+    }
+
+    /**
+     * Marks every project as changed, e.g. after an environment was removed.
+     * The given existing projects are tracked from then on, so listeners resync
+     * them too; any other project gets a new untracked revision.
+     */
+    public void markAllChanged(Collection<String> projectIds) {
+        afterCommit(() -> {
+            long untracked = untrackedRevision.incrementAndGet();
+            projectIds.forEach(projectId -> revisions.computeIfAbsent(projectId, k -> new ProjectRevisions(untracked)));
+            revisions.forEach((projectId, project) -> {
+                long revision;
+                synchronized (project) {
+                    project.reset();
+                    revision = project.revision;
+                }
+                notifyListeners(projectId, null, revision);
+            });
+        });
+    }
+
+    /**
+     * Stops tracking a deleted project. Its revision moves on to the untracked
+     * revision, which is bumped past it so that no ETag of the deleted project
+     * is matched again.
+     */
+    public void removeProject(String projectId) {
+        afterCommit(() -> {
+            ProjectRevisions project = revisions.get(projectId);
+            long revision;
+            if (project == null) {
+                revision = untrackedRevision.incrementAndGet();
+            } else {
+                synchronized (project) {
+                    long last = project.revision;
+                    revision = untrackedRevision.accumulateAndGet(last, (untracked, r) -> Math.max(untracked, r) + 1);
+                    revisions.remove(projectId, project);
+                }
+            }
+            log.debug("Feature revisions of removed project {} dropped", projectId);
+            notifyListeners(projectId, null, revision);
+        });
+    }
+
+    @Override
+    public void onFeatureEnabled(String projectId, String featureName, String environment, String user) {
+        markChanged(projectId, featureName);
+    }
+
+    @Override
+    public void onFeatureDisabled(String projectId, String featureName, String environment, String user) {
+        markChanged(projectId, featureName);
+    }
+
+    @Override
+    public void onFeatureCreated(String projectId, String featureName, String user) {
+        markChanged(projectId, featureName);
+    }
+
+    @Override
+    public void onFeatureUpdated(String projectId, String featureName, String user) {
+        markChanged(projectId, featureName);
+    }
+
+    @Override
+    public void onFeatureDeleted(String projectId, String featureName, String user) {
+        markChanged(projectId, featureName);
+    }
+
+    private void notifyListeners(String projectId, String featureName, long revision) {
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.onChanged(projectId, featureName, revision);
+            } catch (Exception e) {
+                log.error("Feature change listener failed for {}/{}", projectId, featureName, e);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Revision and recent changes of one project, guarded by its own monitor.
+     */
+    private static final class ProjectRevisions {
+        private long revision;
+        // Oldest revision that deltas can be computed from
+        private long floor;
+        private final Deque<Change> changes = new ArrayDeque<>();
+
+        private ProjectRevisions(long revision) {
+            this.revision = revision;
+            this.floor = revision;
+        }
+
+        private void record(String featureName, int historySize) {
+            revision++;
+            changes.addLast(new Change(revision, featureName));
+            while (changes.size() > historySize) {
+                floor = changes.removeFirst().revision();
+            }
+        }
+
+        private void reset() {
+            revision++;
+            floor = revision;
+            changes.clear();
+        }
+    }
+}
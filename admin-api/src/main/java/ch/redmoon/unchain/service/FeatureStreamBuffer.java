@@ -0,0 +1,108 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer of the most recent feature stream events, so that SSE clients
+ * reconnecting with {@code Last-Event-ID} get the events they missed instead
+ * of the full state of their projects.
+ * <p>
+ * Events belong to a stream: the events of a project, or of one of its views
+ * such as the features of an environment.
+ * <p>
+ * Event IDs start at the wall clock time in microseconds, like project
+ * revisions, so an ID handed out before a restart is never mistaken for one of
+ * this instance.
+ */
+@Service
+public class FeatureStreamBuffer {
+
+    /**
+     * An event with its data serialized once, for broadcasting and replay.
+     */
+    public record StreamEvent(long id, String stream, String name, byte[] data) {
+    }
+
+    private final Deque<StreamEvent> events = new ArrayDeque<>();
+    private long lastId = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    // Oldest event ID that events can be replayed from
+    private long floor = lastId;
+
+    @Value("${unchain.sse.replay-buffer-size:10000}")
+    private int capacity = 10000;
+
+    /**
+     * Assigns the next ID to an event and keeps it for replay.
+     */
+    public synchronized StreamEvent append(String stream, String name, byte[] data) {
+        StreamEvent event = new StreamEvent(++lastId, stream, name, data);
+        events.addLast(event);
+        while (events.size() > capacity) {
+            floor = events.removeFirst().id();
+        }
+        return event;
+    }
+
+    public synchronized long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the ID that events can be replayed after at the earliest. Events
+     * up to it have left the buffer.
+     */
+    public synchronized long getFloor() {
+        return floor;
+    }
+
+    /**
+     * Returns the events of the given streams after the given ID, or empty if
+     * the ID is unknown or older than the buffer and the client needs the full
+     * state.
+     */
+    public synchronized Optional<List<StreamEvent>> getEventsSince(long id, Collection<String> streams) {
+        if (id < floor || id > lastId) {
+            return Optional.empty();
+        }
+        List<StreamEvent> result = new ArrayList<>();
+        Iterator<StreamEvent> it = events.descendingIterator();
+        while (it.hasNext()) {
+            StreamEvent event = it.next();
+            if (event.id() <= id) {
+                break;
+            }
+            if (streams.contains(event.stream())) {
+                result.add(event);
+            }
+        }
+        Collections.reverse(result);
+        return Optional.of(result);
+    }
+}
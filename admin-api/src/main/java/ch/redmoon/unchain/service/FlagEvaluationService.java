@@ -0,0 +1,131 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.client.EvaluationEngine;
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.client.snapshot.CompiledFeature;
+import ch.redmoon.unchain.client.snapshot.PayloadParser;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates flags on behalf of clients that cannot embed the SDK, with the
+ * SDK's {@link EvaluationEngine}.
+ * <p>
+ * Each project is compiled once per revision from its cached payload, so
+ * evaluations neither touch the database nor re-read the features. Changes
+ * reach the snapshots the same way they reach the SDKs: a change bumps the
+ * project revision, the {@link ProjectPayloadCache} rebuilds the payload, and
+ * the next evaluation compiles it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlagEvaluationService {
+
+    /**
+     * A compiled project at the revision of the payload it was compiled from.
+     */
+    public record Snapshot(long revision, ProjectSnapshot snapshot) {
+    }
+
+    private final ProjectPayloadCache payloadCache;
+    private final ObjectMapper objectMapper;
+
+    private final EvaluationEngine engine = new EvaluationEngine();
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private PayloadParser parser;
+
+    @PostConstruct
+    void init() {
+        // No metrics are recorded and no environment is preferred on the server
+        parser = new PayloadParser(objectMapper, engine.newCompiler(null, null));
+    }
+
+    /**
+     * Returns the current compiled snapshot of a project, empty for unknown
+     * projects.
+     */
+    public Snapshot getSnapshot(String projectId) {
+        ProjectPayloadCache.Payload payload = payloadCache.get(projectId);
+        Snapshot snapshot = snapshots.get(projectId);
+        if (snapshot != null && snapshot.revision() == payload.revision()) {
+            return snapshot;
+        }
+
+        Snapshot compiled = new Snapshot(payload.revision(), compile(projectId, payload.json()));
+        if (payloadCache.contains(projectId)) {
+            snapshot = snapshots.merge(projectId, compiled, (a, b) -> a.revision() >= b.revision() ? a : b);
+            log.debug("Compiled {} features of project {} at revision {}", compiled.snapshot().size(), projectId,
+                    compiled.revision());
+            return snapshot;
+        }
+        // Unknown or deleted project, not worth keeping
+        snapshots.remove(projectId);
+        return compiled;
+    }
+
+    /**
+     * Evaluates the given flags, or all flags of the snapshot if
+     * {@code featureNames} is {@code null}, for each context.
+     *
+     * @return the results by flag name of each context, in context order
+     */
+    public List<Map<String, EvaluationResult>> evaluate(Snapshot snapshot, String environment,
+            Collection<String> featureNames, List<UnchainContext> contexts) {
+        ProjectSnapshot project = snapshot.snapshot();
+        return contexts.stream()
+                .map(context -> {
+                    Map<String, EvaluationResult> results = new LinkedHashMap<>();
+                    if (featureNames == null) {
+                        for (CompiledFeature feature : project.getFeatures()) {
+                            results.put(feature.getName(),
+                                    engine.evaluate(feature, feature.getEnvironment(environment), context));
+                        }
+                    } else {
+                        for (String featureName : featureNames) {
+                            results.put(featureName, engine.evaluate(project, featureName, environment, context));
+                        }
+                    }
+                    return results;
+                })
+                .toList();
+    }
+
+    private ProjectSnapshot compile(String projectId, byte[] json) {
+        try {
+            return parser.parse(new ByteArrayInputStream(json), projectId, false).toSnapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compile features of project " + projectId, e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.entity.ProjectEntity;
+import ch.redmoon.unchain.repository.ProjectRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the full feature payload of each project serialized, plain and
+ * gzipped, so SDK polls are answered without touching the database.
+ * <p>
+ * Entries are tagged with the project revision read before their data was
+ * loaded. A committed change bumps the revision, which makes the entry stale
+ * right away, and rebuilds it in the background once the project's changes
+ * have been coalesced. A read that comes before the rebuild loads the payload
+ * itself.
+ * <p>
+ * Besides the full payload, a project can have views of it, such as the
+ * features of a single environment. Each view is cached and rebuilt the same
+ * way once it has been requested.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectPayloadCache {
+
+    /**
+     * Builds the response object of a project's payload at the given revision,
+     * or returns {@code null} if there is none.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Object load(String projectId, long revision);
+    }
+
+    private record Key(String projectId, String view) {
+    }
+
+    // View of the full payload
+    private static final String FULL = "";
+    // Bounds the payloads of unknown projects, whose IDs come from requests
+    private static final int MAX_UNKNOWN_PAYLOADS = 1000;
+
+    /**
+     * A serialized payload. {@code gzip} is {@code null} if the payload is too
+     * small to be worth compressing.
+     */
+    public record Payload(long revision, String etag, byte[] json, byte[] gzip) {
+    }
+
+    private final FeatureRevisionService revisionService;
+    private final ProjectRepository projectRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Key, Payload> payloads = new ConcurrentHashMap<>();
+    // Payloads of projects that do not exist, so reads of them skip the database
+    private final Map<Key, Payload> unknownPayloads = new ConcurrentHashMap<>();
+    // Loaders of the requested views, to rebuild them on changes
+    private final Map<Key, Loader> loaders = new ConcurrentHashMap<>();
+    // One load per project at a time
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private volatile Loader loader;
+    private TransactionTemplate transaction;
+    private ChangeCoalescer coalescer;
+
+    @Value("${unchain.sdk.payload-cache.compression-min-bytes:1024}")
+    private int compressionMinBytes = 1024;
+
+    @Value("${unchain.events.coalesce-window-ms:150}")
+    private long coalesceWindowMs;
+
+    @Value("${unchain.events.coalesce-max-delay-ms:1000}")
+    private long coalesceMaxDelayMs;
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(true);
+        coalescer = new ChangeCoalescer("unchain-payload-cache", Duration.ofMillis(coalesceWindowMs),
+                Duration.ofMillis(coalesceMaxDelayMs), (projectId, featureNames) -> rebuild(projectId));
+        revisionService.addListener((projectId, featureName, revision) -> coalescer.add(projectId, null));
+    }
+
+    @PreDestroy
+    void close() {
+        coalescer.close();
+    }
+
+    public void setLoader(Loader loader) {
+        this.loader = loader;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (loader == null) {
+            return;
+        }
+        for (ProjectEntity project : projectRepository.findAll()) {
+            coalescer.add(project.getId(), null);
+        }
+    }
+
+    /**
+     * Returns the current full payload of a project, loading it if the cached
+     * one is missing or stale.
+     */
+    public Payload get(String projectId) {
+        return get(new Key(projectId, FULL), loader);
+    }
+
+    /**
+     * Returns whether a full payload of the project is cached, which it is for
+     * every existing project once requested or warmed up.
+     */
+    public boolean contains(String projectId) {
+        return payloads.containsKey(new Key(projectId, FULL));
+    }
+
+    /**
+     * Returns the current payload of a view of a project, loading it with the
+     * given loader if the cached one is missing or stale. Returns {@code null}
+     * if the loader does not have a payload.
+     *
+     * @param view name of the view, distinct for every loader
+     */
+    public Payload get(String projectId, String view, Loader viewLoader) {
+        Key key = new Key(projectId, view);
+        loaders.putIfAbsent(key, viewLoader);
+        return get(key, viewLoader);
+    }
+
+    private Payload get(Key key, Loader keyLoader) {
+        Payload payload = cached(key);
+        if (payload != null && payload.revision() >= revisionService.getRevision(key.projectId())) {
+            return payload;
+        }
+        return load(key, keyLoader);
+    }
+
+    private Payload cached(Key key) {
+        Payload payload = payloads.get(key);
+        return payload != null ? payload : unknownPayloads.get(key);
+    }
+
+    private void rebuild(String projectId) {
+        transaction.executeWithoutResult(status -> {
+            long revision = revisionService.getRevision(projectId);
+            Payload payload = payloads.get(new Key(projectId, FULL));
+            if (payload == null || payload.revision() < revision) {
+                load(new Key(projectId, FULL), loader);
+            }
+            loaders.forEach((key, viewLoader) -> {
+                Payload viewPayload = payloads.get(key);
+                if (key.projectId().equals(projectId) && (viewPayload == null || viewPayload.revision() < revision)) {
+                    load(key, viewLoader);
+                }
+            });
+        });
+    }
+
+    private Payload load(Key key, Loader keyLoader) {
+        String projectId = key.projectId();
+        synchronized (locks.computeIfAbsent(projectId, k -> new Object())) {
+            // Loaded by a concurrent caller in the meantime
+            long revision = revisionService.getRevision(projectId);
+            Payload cached = cached(key);
+            if (cached != null && cached.revision() >= revision) {
+                return cached;
+            }
+
+            Object response = keyLoader.load(projectId, revision);
+            if (response == null) {
+                payloads.remove(key);
+                loaders.remove(key);
+                return null;
+            }
+            byte[] json = serialize(response);
+            Payload payload = new Payload(revision, FeatureRevisionService.toETag(revision, key.view()), json,
+                    json.length >= compressionMinBytes ? gzip(json) : null);
+            if (projectRepository.existsById(projectId)) {
+                payloads.merge(key, payload, (a, b) -> a.revision() >= b.revision() ? a : b);
+                unknownPayloads.remove(key);
+                log.debug("Cached payload {} of project {} at revision {} ({} bytes)", key.view(), projectId,
+                        revision, json.length);
+            } else {
+                // Unknown or deleted project, not worth rebuilding. Kept until its
+                // revision changes, e.g. when it is created, within a bound.
+                payloads.keySet().removeIf(k -> k.projectId().equals(projectId));
+                loaders.keySet().removeIf(k -> k.projectId().equals(projectId));
+                locks.remove(projectId);
+                if (unknownPayloads.size() >= MAX_UNKNOWN_PAYLOADS) {
+                    unknownPayloads.clear();
+                }
+                unknownPayloads.put(key, payload);
+            }
+            return payload;
+        }
+    }
+
+    private byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize feature payload", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
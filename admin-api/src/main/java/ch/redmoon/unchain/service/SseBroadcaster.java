@@ -0,0 +1,251 @@
+/*
+   Copyright 2026 Philipp Walther
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package ch.redmoon.unchain.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans out Server-Sent Events to many connections without blocking the
+ * publisher.
+ * <p>
+ * Each event is built once into a frame that all of its subscribers share.
+ * Every connection has a bounded queue drained by its own virtual thread, so a
+ * slow client only delays itself. Connections whose queue overflows or whose
+ * write is blocked for longer than {@code unchain.sse.max-write-stall-seconds}
+ * are evicted; clients reconnect and resume from their last event ID.
+ * <p>
+ * Stalled connections are failed as well, which releases them once the write
+ * blocking them returns. A write blocked on a dead socket only returns at the
+ * connector's write timeout ({@code server.tomcat.connection-timeout}), so that
+ * should not exceed the stall limit.
+ */
+@Service
+@Slf4j
+public class SseBroadcaster {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+    // Sentinel that stops a writer, compared by identity
+    private static final Set<DataWithMediaType> CLOSE = new HashSet<>();
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService publisher = Executors
+            .newSingleThreadExecutor(Thread.ofVirtual().name("unchain-sse-publisher").factory());
+
+    @Value("${unchain.sse.subscriber-queue-size:256}")
+    private int queueSize = 256;
+
+    @Value("${unchain.sse.max-write-stall-seconds:30}")
+    private long maxWriteStallSeconds = 30;
+
+    /**
+     * A connection subscribed to one or more topics.
+     */
+    public final class Subscription {
+        private final SseEmitter emitter;
+        private final Collection<String> topics;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueSize);
+        // Start of the write in progress, 0 while idle
+        private volatile long writingSince;
+        private volatile boolean closed;
+        private volatile Thread writer;
+
+        private Subscription(SseEmitter emitter, Collection<String> topics) {
+            this.emitter = emitter;
+            this.topics = topics;
+        }
+
+        /**
+         * Queues an event for this connection only, e.g. its initial state.
+         */
+        public void send(SseEmitter.SseEventBuilder event) {
+            offer(event.build());
+        }
+
+        private void offer(Set<DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                log.warn("Evicting SSE subscriber of {}: {} events pending", topics, queue.size());
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    Set<DataWithMediaType> frame = queue.take();
+                    if (frame == CLOSE) {
+                        break;
+                    }
+                    writingSince = System.nanoTime();
+                    emitter.send(frame);
+                    writingSince = 0;
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE subscriber of {} disconnected: {}", topics, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Stops delivery and releases the queue. Never touches the emitter, whose
+         * lock may be held by a blocked write.
+         */
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (String topic : topics) {
+                List<Subscription> topicSubscriptions = subscriptions.get(topic);
+                if (topicSubscriptions != null) {
+                    topicSubscriptions.remove(this);
+                }
+            }
+            queue.clear();
+            queue.offer(CLOSE);
+            if (writer != null && writingSince != 0) {
+                writer.interrupt();
+            }
+        }
+
+        /**
+         * Closes the subscription and fails its connection. Completing the
+         * emitter waits for its lock, which the stalled write holds, so it is
+         * done off the calling thread.
+         */
+        private void evict() {
+            close();
+            Thread.ofVirtual().name("unchain-sse-evictor").start(() -> {
+                try {
+                    emitter.completeWithError(new IOException("SSE write stalled"));
+                } catch (Exception e) {
+                    log.debug("Could not fail stalled SSE subscriber of {}: {}", topics, e.getMessage());
+                }
+            });
+        }
+
+        private boolean isStalled(long now) {
+            long since = writingSince;
+            return since != 0 && now - since > TimeUnit.SECONDS.toNanos(maxWriteStallSeconds);
+        }
+    }
+
+    /**
+     * Subscribes a connection to the given topics and starts its writer. The
+     * subscription ends when the emitter completes, times out or fails.
+     */
+    public Subscription subscribe(SseEmitter emitter, Collection<String> topics) {
+        Subscription subscription = new Subscription(emitter, List.copyOf(topics));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        for (String topic : subscription.topics) {
+            subscriptions.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(subscription);
+        }
+        subscription.writer = Thread.ofVirtual().name("unchain-sse-writer").start(subscription::drain);
+        return subscription;
+    }
+
+    /**
+     * Builds the event once and queues it for every subscriber of the topic.
+     * Never blocks.
+     */
+    public void broadcast(String topic, SseEmitter.SseEventBuilder event) {
+        List<Subscription> topicSubscriptions = subscriptions.get(topic);
+        if (topicSubscriptions == null || topicSubscriptions.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> frame = event.build();
+        for (Subscription subscription : topicSubscriptions) {
+            subscription.offer(frame);
+        }
+    }
+
+    public boolean hasSubscribers(String topic) {
+        List<Subscription> topicSubscriptions = subscriptions.get(topic);
+        return topicSubscriptions != null && !topicSubscriptions.isEmpty();
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Runs a task off the calling thread. Tasks run one at a time in submission
+     * order, so events they broadcast keep their order.
+     */
+    public void submit(Runnable task) {
+        publisher.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("SSE publishing task failed", e);
+            }
+        });
+    }
+
+    /**
+     * Keeps idle connections open through proxies and load balancers, detects
+     * dead ones, and evicts connections whose writes are stalled.
+     */
+    @Scheduled(fixedDelayString = "${unchain.sse.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        long now = System.nanoTime();
+        subscriptions.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .forEach(subscription -> {
+                    if (subscription.isStalled(now)) {
+                        log.warn("Evicting SSE subscriber of {}: write stalled", subscription.topics);
+                        subscription.evict();
+                    } else if (subscription.queue.isEmpty()) {
+                        subscription.offer(HEARTBEAT);
+                    }
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        publisher.shutdownNow();
+    }
+}
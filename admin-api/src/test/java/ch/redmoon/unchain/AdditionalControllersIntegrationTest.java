@@ -217,4 +217,44 @@ class AdditionalControllersIntegrationTest {
                                 .body("constraints[0].operator", equalTo("IN"))
                                 .body("constraints[0].values", hasSize(2));
         }
+
+        @Test
+        void testGzippedMetricsReport() throws Exception {
+                String reportJson = """
+                                {
+                                    "metrics": [
+                                        {
+                                            "projectId": "default",
+                                            "featureName": "gzip-feature",
+                                            "environment": "development",
+                                            "count": 7,
+                                            "yes": 5,
+                                            "no": 2
+                                        }
+                                    ]
+                                }
+                                """;
+                java.io.ByteArrayOutputStream compressed = new java.io.ByteArrayOutputStream();
+                try (java.util.zip.GZIPOutputStream gzip = new java.util.zip.GZIPOutputStream(compressed)) {
+                        gzip.write(reportJson.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                }
+
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .header("Content-Encoding", "gzip")
+                                .body(compressed.toByteArray())
+                                .when()
+                                .post("/metrics")
+                                .then()
+                                .statusCode(202);
+
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/projects/default/metrics")
+                                .then()
+                                .statusCode(200)
+                                .body("featureActivity.find { it.name == 'gzip-feature' }.count", equalTo(7));
+        }
 }
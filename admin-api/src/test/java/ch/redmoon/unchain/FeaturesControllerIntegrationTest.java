@@ -2,6 +2,7 @@ package ch.redmoon.unchain;
 
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,9 +10,34 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import ch.redmoon.unchain.repository.*;
 import ch.redmoon.unchain.entity.ProjectEntity;
+import ch.redmoon.unchain.service.FeatureReadModel;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @org.springframework.test.context.ActiveProfiles("demo")
@@ -27,6 +53,10 @@ class FeaturesControllerIntegrationTest {
         private FeatureRepository featureRepository;
         @Autowired
         private FeatureStrategyRepository featureStrategyRepository;
+        @Autowired
+        private FeatureReadModel featureReadModel;
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
 
         @BeforeEach
         void setUp() {
@@ -156,4 +186,644 @@ class FeaturesControllerIntegrationTest {
                                 .then()
                                 .statusCode(409);
         }
+
+        @Test
+        void testConditionalFeatureList() {
+                String etag = given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .header("ETag", notNullValue())
+                                .extract().header("ETag");
+
+                // Unchanged - should be 304 Not Modified
+                given()
+                                .auth().oauth2("anything")
+                                .header("If-None-Match", etag)
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(304)
+                                .header("ETag", equalTo(etag))
+                                .header("X-Unchain-Poll-Interval", notNullValue());
+
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"name\": \"etag-feature\", \"type\": \"release\" }")
+                                .when()
+                                .post("/projects/default/features")
+                                .then()
+                                .statusCode(201);
+
+                // Changed - full payload with a new ETag
+                given()
+                                .auth().oauth2("anything")
+                                .header("If-None-Match", etag)
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .header("ETag", not(equalTo(etag)))
+                                .body("features", hasSize(1));
+        }
+
+        @Test
+        void testDeltaFeatureList() {
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"name\": \"delta-A\", \"type\": \"release\" }")
+                                .when()
+                                .post("/projects/default/features")
+                                .then()
+                                .statusCode(201);
+
+                long revision = given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .body("delta", equalTo(false))
+                                .body("features", hasSize(1))
+                                .extract().jsonPath().getLong("revision");
+
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"name\": \"delta-B\", \"type\": \"release\" }")
+                                .when()
+                                .post("/projects/default/features")
+                                .then()
+                                .statusCode(201);
+
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .delete("/projects/default/features/delta-A")
+                                .then()
+                                .statusCode(200);
+
+                // Only the changes since the revision
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("sinceRevision", revision)
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .body("delta", equalTo(true))
+                                .body("features.name", contains("delta-B"))
+                                .body("deleted", contains("delta-A"))
+                                .body("revision", greaterThan(revision));
+
+                // Unknown revision - full resync
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("sinceRevision", 1)
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .body("delta", equalTo(false))
+                                .body("features.name", contains("delta-B"));
+        }
+
+        @Test
+        void testFeaturesOfSeveralProjects() {
+                ProjectEntity other = new ProjectEntity();
+                other.setId("other");
+                other.setName("Other Project");
+                projectRepository.save(other);
+
+                for (String project : new String[] { "default", "other" }) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"name\": \"bulk-" + project + "\", \"type\": \"release\" }")
+                                        .when()
+                                        .post("/projects/" + project + "/features")
+                                        .then()
+                                        .statusCode(201);
+                }
+
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("projects", "default,other,unknown")
+                                .when()
+                                .get("/features")
+                                .then()
+                                .statusCode(200)
+                                .body("projects.projectId", contains("default", "other", "unknown"))
+                                .body("projects[0].features.name", contains("bulk-default"))
+                                .body("projects[1].features.name", contains("bulk-other"))
+                                .body("projects[2].features", empty())
+                                .body("projects[0].revision", notNullValue());
+        }
+
+        @Test
+        void testFeatureListWithStrategies() {
+                for (String name : new String[] { "graph-A", "graph-B" }) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"name\": \"" + name + "\", \"type\": \"release\" }")
+                                        .when()
+                                        .post("/projects/default/features")
+                                        .then()
+                                        .statusCode(201);
+                }
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("""
+                                                {
+                                                    "name": "default",
+                                                    "constraints": [{ "contextName": "userId", "operator": "IN",
+                                                                      "values": ["u1", "u2"] }],
+                                                    "parameters": {}
+                                                }
+                                                """)
+                                .when()
+                                .post("/projects/default/features/graph-A/environments/Test/strategies")
+                                .then()
+                                .statusCode(201);
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/graph-B/environments/Pre-Prod/on")
+                                .then()
+                                .statusCode(200);
+
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .body("features.find { it.name == 'graph-A' }.environments.name", contains("Test"))
+                                .body("features.find { it.name == 'graph-A' }.environments[0].enabled", equalTo(false))
+                                .body("features.find { it.name == 'graph-A' }.environments[0].strategies[0].constraints[0].values",
+                                                contains("u1", "u2"))
+                                .body("features.find { it.name == 'graph-B' }.environments.name", contains("Pre-Prod"))
+                                .body("features.find { it.name == 'graph-B' }.environments[0].enabled", equalTo(true));
+
+                // A single feature lists all environments
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/projects/default/features/graph-B")
+                                .then()
+                                .statusCode(200)
+                                .body("environments.name", hasItems("Test", "Pre-Prod", "Production"))
+                                .body("environments.find { it.name == 'Test' }.strategies", empty());
+        }
+
+        @Test
+        void testFeatureReadModelStatementCount() throws Exception {
+                Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                statistics.setStatisticsEnabled(true);
+                try {
+                        createFeatureWithStrategy("count-0");
+                        long single = countReadModelStatements(statistics, 1);
+                        for (int i = 1; i < 50; i++) {
+                                createFeatureWithStrategy("count-" + i);
+                        }
+                        long many = countReadModelStatements(statistics, 50);
+
+                        // Fetched in bulk, not per feature
+                        assertEquals(single, many);
+                } finally {
+                        statistics.setStatisticsEnabled(false);
+                }
+        }
+
+        private void createFeatureWithStrategy(String name) {
+                createFeature("default", name);
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("""
+                                                {
+                                                    "name": "default",
+                                                    "constraints": [{ "contextName": "userId", "operator": "IN",
+                                                                      "values": ["u1", "u2"] }],
+                                                    "parameters": {}
+                                                }
+                                                """)
+                                .when()
+                                .post("/projects/default/features/" + name + "/environments/Test/strategies")
+                                .then()
+                                .statusCode(201);
+        }
+
+        private long countReadModelStatements(Statistics statistics, int expectedFeatures) throws InterruptedException {
+                // Rebuilds of the changed project run in the background and share the
+                // statistics, so wait for them to finish first
+                long before;
+                do {
+                        before = statistics.getPrepareStatementCount();
+                        Thread.sleep(1500);
+                } while (statistics.getPrepareStatementCount() != before);
+
+                statistics.clear();
+                assertEquals(expectedFeatures, featureReadModel.getFeatures("default").size());
+                return statistics.getPrepareStatementCount();
+        }
+
+        @Test
+        void testEnvironmentScopedFeatureList() {
+                for (String name : new String[] { "scoped-on", "scoped-off" }) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"name\": \"" + name + "\", \"type\": \"release\" }")
+                                        .when()
+                                        .post("/projects/default/features")
+                                        .then()
+                                        .statusCode(201);
+                }
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/scoped-on/environments/Test/on")
+                                .then()
+                                .statusCode(200);
+
+                String etag = given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/client/projects/default/environments/Test/features")
+                                .then()
+                                .statusCode(200)
+                                .body("environment", equalTo("Test"))
+                                .body("features.name", containsInAnyOrder("scoped-on", "scoped-off"))
+                                .body("features.find { it.name == 'scoped-on' }.enabled", equalTo(true))
+                                .body("features[0]", not(hasKey("description")))
+                                .body("features[0]", not(hasKey("environments")))
+                                .extract().header("ETag");
+
+                // Another view of the same revision is not matched by its ETag
+                long revision = given()
+                                .auth().oauth2("anything")
+                                .queryParam("enabledOnly", true)
+                                .header("If-None-Match", etag)
+                                .when()
+                                .get("/client/projects/default/environments/Test/features")
+                                .then()
+                                .statusCode(200)
+                                .header("ETag", not(equalTo(etag)))
+                                .body("features.name", contains("scoped-on"))
+                                .extract().jsonPath().getLong("revision");
+
+                // Disabled since, so it is deleted for clients of enabled features only
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/scoped-on/environments/Test/off")
+                                .then()
+                                .statusCode(200);
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("enabledOnly", true)
+                                .queryParam("sinceRevision", revision)
+                                .when()
+                                .get("/client/projects/default/environments/Test/features")
+                                .then()
+                                .statusCode(200)
+                                .body("delta", equalTo(true))
+                                .body("features", empty())
+                                .body("deleted", contains("scoped-on"));
+
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .get("/client/projects/default/environments/unknown/features")
+                                .then()
+                                .statusCode(404);
+        }
+
+        @Test
+        void testEvaluateFlags() {
+                for (String name : new String[] { "eval-on", "eval-off" }) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"name\": \"" + name + "\", \"type\": \"release\" }")
+                                        .when()
+                                        .post("/projects/default/features")
+                                        .then()
+                                        .statusCode(201);
+                }
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/eval-on/environments/Test/on")
+                                .then()
+                                .statusCode(200);
+
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"features\": [\"eval-on\", \"eval-off\", \"eval-missing\"],"
+                                                + " \"contexts\": [{ \"userId\": \"u1\" }, { \"userId\": \"u2\" }] }")
+                                .when()
+                                .post("/projects/default/environments/Test/evaluate")
+                                .then()
+                                .statusCode(200)
+                                .body("results", hasSize(2))
+                                .body("results[0].flags.'eval-on'.enabled", equalTo(true))
+                                .body("results[1].flags.'eval-on'.enabled", equalTo(true))
+                                .body("results[0].flags.'eval-off'.enabled", equalTo(false))
+                                .body("results[0].flags.'eval-off'.reason", equalTo("DISABLED"))
+                                .body("results[0].flags.'eval-missing'.reason", equalTo("FLAG_NOT_FOUND"));
+
+                // Changes are visible to the next evaluation
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/eval-on/environments/Test/off")
+                                .then()
+                                .statusCode(200);
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"features\": [\"eval-on\"], \"contexts\": [{ \"userId\": \"u1\" }] }")
+                                .when()
+                                .post("/projects/default/environments/Test/evaluate")
+                                .then()
+                                .statusCode(200)
+                                .body("results[0].flags.'eval-on'.enabled", equalTo(false));
+
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"features\": [\"eval-on\"] }")
+                                .when()
+                                .post("/projects/default/environments/Test/evaluate")
+                                .then()
+                                .statusCode(400);
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"features\": [\"eval-on\", \"\"], \"contexts\": [{ \"userId\": \"u1\" }] }")
+                                .when()
+                                .post("/projects/default/environments/Test/evaluate")
+                                .then()
+                                .statusCode(400);
+
+                // Not all flags off, but unknown
+                for (String path : new String[] { "/projects/default/environments/Unknown/evaluate",
+                                "/projects/unknown/environments/Test/evaluate" }) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"contexts\": [{ \"userId\": \"u1\" }] }")
+                                        .when()
+                                        .post(path)
+                                        .then()
+                                        .statusCode(404);
+                }
+        }
+
+        @Test
+        void testGzippedFeatureList() {
+                for (int i = 0; i < 10; i++) {
+                        given()
+                                        .auth().oauth2("anything")
+                                        .contentType(ContentType.JSON)
+                                        .body("{ \"name\": \"gzip-feature-" + i + "\", \"type\": \"release\" }")
+                                        .when()
+                                        .post("/projects/default/features")
+                                        .then()
+                                        .statusCode(201);
+                }
+
+                given()
+                                .auth().oauth2("anything")
+                                .header("Accept-Encoding", "gzip")
+                                .when()
+                                .get("/projects/default/features")
+                                .then()
+                                .statusCode(200)
+                                .header("Content-Encoding", "gzip")
+                                .header("ETag", startsWith("W/"))
+                                .body("features.name", hasItem("gzip-feature-9"));
+        }
+
+        @Test
+        void testMultiplexedFeatureStream() throws Exception {
+                ProjectEntity other = new ProjectEntity();
+                other.setId("other");
+                other.setName("Other Project");
+                projectRepository.save(other);
+                createFeature("default", "stream-initial");
+
+                try (EventStream stream = new EventStream(port, "/features/stream?projects=default", null)) {
+                        Map<String, String> initial = stream.next();
+                        assertEquals("features", initial.get("event"));
+                        assertEquals("default", JsonPath.from(initial.get("data")).getString("projectId"));
+                        assertEquals(List.of("stream-initial"),
+                                        JsonPath.from(initial.get("data")).getList("features.name"));
+
+                        createFeature("other", "stream-foreign");
+                        createFeature("default", "stream-added");
+
+                        Map<String, String> upserted;
+                        do {
+                                upserted = stream.next();
+                                // Changes of projects not subscribed to are not streamed
+                                assertEquals("default", JsonPath.from(upserted.get("data")).getString("projectId"));
+                        } while (!JsonPath.from(upserted.get("data")).getList("features.name").contains("stream-added"));
+                        assertEquals("feature-upserted", upserted.get("event"));
+                        assertNotNull(upserted.get("id"));
+                }
+
+                String tooMany = IntStream.rangeClosed(1, 51)
+                                .mapToObj(i -> "project-" + i)
+                                .collect(Collectors.joining(","));
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("projects", tooMany)
+                                .when()
+                                .get("/features/stream")
+                                .then()
+                                .statusCode(400);
+        }
+
+        @Test
+        void testEnvironmentScopedFeatureStream() throws Exception {
+                createFeature("default", "scoped-stream");
+
+                try (EventStream stream = new EventStream(port,
+                                "/features/stream?projects=default&environment=Test&enabledOnly=true", null)) {
+                        Map<String, String> initial = stream.next();
+                        assertEquals("features", initial.get("event"));
+                        assertEquals("Test", JsonPath.from(initial.get("data")).getString("environment"));
+                        assertEquals(List.of(), JsonPath.from(initial.get("data")).getList("features"));
+
+                        Map<String, String> upserted = stream.next(() -> toggle("scoped-stream", "on"));
+                        assertEquals("feature-upserted", upserted.get("event"));
+                        assertEquals(List.of("scoped-stream"), JsonPath.from(upserted.get("data")).getList("features.name"));
+                        assertEquals("Test", JsonPath.from(upserted.get("data")).getString("environment"));
+                        assertEquals(true, JsonPath.from(upserted.get("data")).getBoolean("features[0].enabled"));
+                        // Client features only, without the other environments
+                        assertNull(JsonPath.from(upserted.get("data")).get("features[0].environments"));
+
+                        // Disabled features are gone for clients that only get the enabled ones
+                        Map<String, String> deleted = stream.next(() -> toggle("scoped-stream", "off"));
+                        assertEquals("feature-deleted", deleted.get("event"));
+                        assertEquals(List.of("scoped-stream"), JsonPath.from(deleted.get("data")).getList("deleted"));
+                }
+
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("projects", "default")
+                                .queryParam("environment", "Unknown")
+                                .when()
+                                .get("/features/stream")
+                                .then()
+                                .statusCode(404);
+                given()
+                                .auth().oauth2("anything")
+                                .queryParam("projects", "default,unknown")
+                                .queryParam("environment", "Test")
+                                .when()
+                                .get("/features/stream")
+                                .then()
+                                .statusCode(404);
+        }
+
+        @Test
+        void testResumeFeatureStreamFromLastEventId() throws Exception {
+                ProjectEntity other = new ProjectEntity();
+                other.setId("other");
+                other.setName("Other Project");
+                projectRepository.save(other);
+
+                String resumeFrom;
+                List<String> missed = new java.util.ArrayList<>();
+                try (EventStream stream = new EventStream(port, "/features/stream?projects=default", null)) {
+                        assertEquals("features", stream.next().get("event"));
+                        resumeFrom = stream.next(() -> createFeature("default", "resume-seen")).get("id");
+
+                        // Missed by a client disconnected from here on
+                        for (String name : new String[] { "resume-first", "resume-second" }) {
+                                createFeature("other", "resume-foreign");
+                                Map<String, String> event = stream.next(() -> createFeature("default", name));
+                                assertEquals(List.of(name), JsonPath.from(event.get("data")).getList("features.name"));
+                                missed.add(event.get("id"));
+                        }
+                }
+
+                // Replayed from the buffer, in order and without other projects' events
+                try (EventStream stream = new EventStream(port, "/features/stream?projects=default", resumeFrom)) {
+                        for (int i = 0; i < missed.size(); i++) {
+                                Map<String, String> event = stream.next();
+                                assertEquals("feature-upserted", event.get("event"));
+                                assertEquals(missed.get(i), event.get("id"));
+                                assertEquals("default", JsonPath.from(event.get("data")).getString("projectId"));
+                        }
+                }
+
+                // Unknown to this instance, e.g. handed out before a restart
+                try (EventStream stream = new EventStream(port, "/features/stream?projects=default", "1")) {
+                        Map<String, String> event = stream.next();
+                        assertEquals("features", event.get("event"));
+                        assertEquals(List.of("resume-first", "resume-second", "resume-seen"),
+                                        JsonPath.from(event.get("data")).getList("features.name").stream().sorted()
+                                                        .collect(Collectors.toList()));
+                }
+        }
+
+        private void toggle(String name, String state) {
+                given()
+                                .auth().oauth2("anything")
+                                .when()
+                                .post("/projects/default/features/" + name + "/environments/Test/" + state)
+                                .then()
+                                .statusCode(200);
+        }
+
+        private void createFeature(String projectId, String name) {
+                given()
+                                .auth().oauth2("anything")
+                                .contentType(ContentType.JSON)
+                                .body("{ \"name\": \"" + name + "\", \"type\": \"release\" }")
+                                .when()
+                                .post("/projects/" + projectId + "/features")
+                                .then()
+                                .statusCode(201);
+        }
+
+        /**
+         * Reads the events of an SSE stream in the background, each as a map of
+         * its fields.
+         */
+        private static final class EventStream implements AutoCloseable {
+                private final BlockingQueue<Map<String, String>> events = new LinkedBlockingQueue<>();
+                private final InputStream body;
+
+                EventStream(int port, String path, String lastEventId) throws Exception {
+                        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                                        .version(HttpClient.Version.HTTP_1_1)
+                                        .header("Accept", "text/event-stream")
+                                        .header("Authorization", "Bearer anything");
+                        if (lastEventId != null) {
+                                request.header("Last-Event-ID", lastEventId);
+                        }
+                        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                                        .send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                        assertEquals(200, response.statusCode());
+                        body = response.body();
+                        Thread.ofVirtual().start(this::read);
+                }
+
+                private void read() {
+                        try (BufferedReader reader = new BufferedReader(
+                                        new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                                Map<String, String> event = new HashMap<>();
+                                String line;
+                                while ((line = reader.readLine()) != null) {
+                                        int colon = line.indexOf(':');
+                                        if (line.isEmpty()) {
+                                                if (event.containsKey("data")) {
+                                                        events.add(event);
+                                                }
+                                                event = new HashMap<>();
+                                        } else if (colon > 0) {
+                                                // Comments such as heartbeats start with a colon
+                                                event.merge(line.substring(0, colon), line.substring(colon + 1).trim(),
+                                                                (a, b) -> a + "\n" + b);
+                                        }
+                                }
+                        } catch (IOException e) {
+                                // Closed by the test
+                        }
+                }
+
+                Map<String, String> next() throws InterruptedException {
+                        Map<String, String> event = events.poll(10, TimeUnit.SECONDS);
+                        assertNotNull(event, "No stream event within 10 seconds");
+                        return event;
+                }
+
+                /**
+                 * Performs a change and returns the first event after it, skipping
+                 * those still pending from earlier changes.
+                 */
+                Map<String, String> next(Runnable change) throws InterruptedException {
+                        events.clear();
+                        change.run();
+                        return next();
+                }
+
+                @Override
+                public void close() throws IOException {
+                        body.close();
+                }
+        }
 }
@@ -0,0 +1,51 @@
+package ch.redmoon.unchain.controller;
+
+import ch.redmoon.unchain.service.ProjectPayloadCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadResponsesTest {
+
+    private static final byte[] JSON = "{\"features\":[]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIP = new byte[] { 0x1f, (byte) 0x8b };
+
+    private final ProjectPayloadCache.Payload payload = new ProjectPayloadCache.Payload(1, "W/\"1\"", JSON, GZIP);
+
+    @Test
+    void ok_ServesGzipToClientsAcceptingIt() {
+        for (String acceptEncoding : new String[] { "gzip", "deflate, gzip", "GZIP;q=0.5" }) {
+            ResponseEntity<Object> response = PayloadResponses.ok(payload, acceptEncoding, 60);
+
+            assertSame(GZIP, response.getBody(), acceptEncoding);
+            assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+            assertEquals("W/\"1\"", response.getHeaders().getETag());
+        }
+    }
+
+    @Test
+    void ok_ServesPlainJsonOtherwise() {
+        for (String acceptEncoding : new String[] { null, "", "deflate", "gzip;q=0", "gzip; q=0.0" }) {
+            ResponseEntity<Object> response = PayloadResponses.ok(payload, acceptEncoding, 60);
+
+            assertSame(JSON, response.getBody(), acceptEncoding);
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        }
+    }
+
+    @Test
+    void ok_ServesPlainJsonIfPayloadIsTooSmallToCompress() {
+        ProjectPayloadCache.Payload small = new ProjectPayloadCache.Payload(1, "W/\"1\"", JSON, null);
+
+        ResponseEntity<Object> response = PayloadResponses.ok(small, "gzip", 60);
+
+        assertSame(JSON, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+}
@@ -0,0 +1,113 @@
+package ch.redmoon.unchain.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCoalescerTest {
+
+    private record Flush(String projectId, Set<String> featureNames, long at, Thread thread) {
+    }
+
+    private final BlockingQueue<Flush> flushes = new LinkedBlockingQueue<>();
+    private ChangeCoalescer coalescer;
+
+    private ChangeCoalescer coalescer(long windowMs, long maxDelayMs) {
+        coalescer = new ChangeCoalescer("test-coalescer", Duration.ofMillis(windowMs), Duration.ofMillis(maxDelayMs),
+                (projectId, featureNames) -> flushes.add(
+                        new Flush(projectId, featureNames, System.nanoTime(), Thread.currentThread())));
+        return coalescer;
+    }
+
+    private Flush nextFlush() throws InterruptedException {
+        Flush flush = flushes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(flush, "Nothing flushed");
+        return flush;
+    }
+
+    private static long millisBetween(long from, long to) {
+        return TimeUnit.NANOSECONDS.toMillis(to - from);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void add_FlushesEachProjectOnceAfterQuietWindow() throws Exception {
+        ChangeCoalescer coalescer = coalescer(100, 10_000);
+
+        coalescer.add("a", "x");
+        coalescer.add("b", "z");
+        coalescer.add("a", "y");
+        long lastAdd = System.nanoTime();
+
+        Flush first = nextFlush();
+        Flush second = nextFlush();
+        Map<String, Set<String>> flushed = Map.of(
+                first.projectId(), first.featureNames(), second.projectId(), second.featureNames());
+        assertEquals(Map.of("a", Set.of("x", "y"), "b", Set.of("z")), flushed);
+        assertTrue(millisBetween(lastAdd, first.at()) >= 90, "Flushed before the window was quiet");
+        assertNull(flushes.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void add_FlushesContinuousChangesAfterMaxDelay() throws Exception {
+        ChangeCoalescer coalescer = coalescer(200, 500);
+
+        long start = System.nanoTime();
+        Flush flush = null;
+        // Never quiet for the window, only the max delay can flush
+        while (flush == null && millisBetween(start, System.nanoTime()) < 5_000) {
+            coalescer.add("a", "x");
+            flush = flushes.poll(50, TimeUnit.MILLISECONDS);
+        }
+
+        assertNotNull(flush, "Max delay did not flush");
+        assertEquals(Set.of("x"), flush.featureNames());
+        long delay = millisBetween(start, flush.at());
+        assertTrue(delay >= 490 && delay < 2_000, "Flushed after " + delay + " ms");
+    }
+
+    @Test
+    void add_PromotesToWholeProjectChange() throws Exception {
+        ChangeCoalescer coalescer = coalescer(100, 10_000);
+
+        coalescer.add("a", "x");
+        coalescer.add("a", null);
+        coalescer.add("a", "y");
+
+        Flush flush = nextFlush();
+        assertEquals("a", flush.projectId());
+        assertNull(flush.featureNames());
+        assertNull(flushes.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void add_FlushesRightAwayWithoutWindow() {
+        ChangeCoalescer coalescer = coalescer(0, 1_000);
+
+        coalescer.add("a", "x");
+        coalescer.add("a", null);
+
+        Flush feature = flushes.poll();
+        Flush project = flushes.poll();
+        assertNotNull(feature);
+        assertNotNull(project);
+        assertEquals(Set.of("x"), feature.featureNames());
+        assertSame(Thread.currentThread(), feature.thread());
+        assertNull(project.featureNames());
+        assertNull(flushes.poll());
+    }
+}
@@ -0,0 +1,80 @@
+package ch.redmoon.unchain.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeatureRevisionServiceTest {
+
+    private final FeatureRevisionService revisionService = new FeatureRevisionService();
+
+    private Map<?, ?> tracked() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(revisionService, "revisions");
+    }
+
+    @Test
+    void getRevision_DoesNotTrackReadProjects() {
+        long revision = revisionService.getRevision("unknown");
+
+        assertEquals(revision, revisionService.getRevision("other"));
+        assertEquals(revisionService.getETag("unknown"), revisionService.getETag("unknown"));
+        assertEquals(Optional.of(new FeatureRevisionService.Changes(revision, Set.of())),
+                revisionService.getChangesSince("unknown", revision));
+        assertEquals(Optional.empty(), revisionService.getChangesSince("unknown", revision - 1));
+        assertTrue(tracked().isEmpty());
+    }
+
+    @Test
+    void markChanged_TracksProjectFromUntrackedRevision() {
+        long untracked = revisionService.getRevision("default");
+
+        revisionService.markChanged("default", "feature");
+
+        assertEquals(untracked + 1, revisionService.getRevision("default"));
+        assertEquals(Set.of("feature"), revisionService.getChangesSince("default", untracked).orElseThrow()
+                .featureNames());
+        assertEquals(untracked, revisionService.getRevision("other"));
+        assertEquals(1, tracked().size());
+    }
+
+    @Test
+    void markAllChanged_ResyncsGivenProjectsAndBumpsUntrackedRevision() {
+        List<String> notified = new ArrayList<>();
+        revisionService.addListener((projectId, featureName, revision) -> notified.add(projectId));
+        long untracked = revisionService.getRevision("unknown");
+        revisionService.markChanged("changed", "feature");
+
+        revisionService.markAllChanged(List.of("default"));
+
+        assertTrue(revisionService.getRevision("unknown") > untracked);
+        assertTrue(revisionService.getRevision("default") > revisionService.getRevision("unknown"));
+        assertEquals(Optional.empty(), revisionService.getChangesSince("changed", untracked + 1));
+        assertEquals(Set.of("changed", "default"), Set.copyOf(notified.subList(1, notified.size())));
+        assertEquals(2, tracked().size());
+    }
+
+    @Test
+    void removeProject_DropsProjectAndMovesPastItsRevision() {
+        List<Long> notified = new ArrayList<>();
+        revisionService.addListener((projectId, featureName, revision) -> notified.add(revision));
+        revisionService.markChanged("default", "feature");
+        revisionService.markChanged("default", "feature");
+        long removed = revisionService.getRevision("default");
+
+        revisionService.removeProject("default");
+
+        assertTrue(tracked().isEmpty());
+        long revision = revisionService.getRevision("default");
+        assertTrue(revision > removed);
+        assertEquals(revision, revisionService.getRevision("other"));
+        assertEquals(revision, notified.get(notified.size() - 1));
+        assertEquals(Optional.empty(), revisionService.getChangesSince("default", removed));
+    }
+}
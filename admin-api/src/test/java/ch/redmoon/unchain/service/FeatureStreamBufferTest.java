@@ -0,0 +1,51 @@
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.service.FeatureStreamBuffer.StreamEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeatureStreamBufferTest {
+
+    private final FeatureStreamBuffer buffer = new FeatureStreamBuffer();
+
+    private static List<String> names(Optional<List<StreamEvent>> events) {
+        return events.orElseThrow().stream().map(StreamEvent::name).toList();
+    }
+
+    @Test
+    void getEventsSince_ReplaysEventsOfProjectsInOrder() {
+        long start = buffer.getLastId();
+        StreamEvent first = buffer.append("a", "first", new byte[0]);
+        buffer.append("b", "foreign", new byte[0]);
+        StreamEvent second = buffer.append("a", "second", new byte[0]);
+
+        assertTrue(first.id() > start && second.id() > first.id());
+        assertEquals(List.of("first", "second"), names(buffer.getEventsSince(start, List.of("a"))));
+        assertEquals(List.of("second"), names(buffer.getEventsSince(first.id(), List.of("a"))));
+        assertEquals(List.of("first", "foreign", "second"),
+                names(buffer.getEventsSince(start, List.of("a", "b"))));
+        assertEquals(List.of(), names(buffer.getEventsSince(second.id(), List.of("a", "b"))));
+    }
+
+    @Test
+    void getEventsSince_RequiresFullStateForIdsOutsideTheBuffer() {
+        ReflectionTestUtils.setField(buffer, "capacity", 2);
+        long start = buffer.getLastId();
+        StreamEvent evicted = buffer.append("a", "evicted", new byte[0]);
+        buffer.append("a", "kept", new byte[0]);
+        StreamEvent last = buffer.append("a", "last", new byte[0]);
+
+        // Events after the ID were dropped from the buffer
+        assertEquals(evicted.id(), buffer.getFloor());
+        assertTrue(buffer.getEventsSince(start, List.of("a")).isEmpty());
+        assertEquals(List.of("kept", "last"), names(buffer.getEventsSince(evicted.id(), List.of("a"))));
+        // Handed out before a restart, or by another instance
+        assertTrue(buffer.getEventsSince(1, List.of("a")).isEmpty());
+        assertTrue(buffer.getEventsSince(last.id() + 1, List.of("a")).isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package ch.redmoon.unchain.service;
+
+import ch.redmoon.unchain.entity.ProjectEntity;
+import ch.redmoon.unchain.repository.ProjectRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ProjectPayloadCacheTest {
+
+    private final FeatureRevisionService revisionService = new FeatureRevisionService();
+    private final ProjectRepository projectRepository = mock(ProjectRepository.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private ProjectPayloadCache cache;
+
+    private Object load(String projectId, long revision) {
+        loads.incrementAndGet();
+        return Map.of("projectId", projectId, "revision", revision, "features", List.of());
+    }
+
+    private static ProjectEntity project(String id) {
+        ProjectEntity project = new ProjectEntity();
+        project.setId(id);
+        return project;
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(projectRepository.existsById("default")).thenReturn(true);
+        cache = new ProjectPayloadCache(revisionService, projectRepository, mock(PlatformTransactionManager.class),
+                new ObjectMapper());
+        // No coalescing, so changes rebuild right away
+        ReflectionTestUtils.setField(cache, "coalesceWindowMs", 0L);
+        cache.init();
+        cache.setLoader(this::load);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    void get_ServesCachedPayloadWithoutLoading() {
+        ProjectPayloadCache.Payload first = cache.get("default");
+        clearInvocations(projectRepository);
+
+        ProjectPayloadCache.Payload second = cache.get("default");
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        verifyNoInteractions(projectRepository);
+    }
+
+    @Test
+    void get_RemembersUnknownProjectsUntilTheyChange() {
+        ProjectPayloadCache.Payload first = cache.get("unknown");
+        ProjectPayloadCache.Payload second = cache.get("unknown");
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        verify(projectRepository, times(1)).existsById("unknown");
+        assertFalse(cache.contains("unknown"));
+
+        // Created since
+        when(projectRepository.existsById("unknown")).thenReturn(true);
+        revisionService.markChanged("unknown", "feature");
+        assertNotSame(first, cache.get("unknown"));
+        assertTrue(cache.contains("unknown"));
+    }
+
+    @Test
+    void markChanged_RebuildsPayloadBeforeItIsRead() {
+        ProjectPayloadCache.Payload before = cache.get("default");
+
+        revisionService.markChanged("default", "feature");
+        assertEquals(2, loads.get());
+
+        ProjectPayloadCache.Payload after = cache.get("default");
+        assertEquals(2, loads.get());
+        assertEquals(revisionService.getRevision("default"), after.revision());
+        assertTrue(after.revision() > before.revision());
+        assertNotEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void markChanged_RebuildsRequestedViews() {
+        AtomicInteger viewLoads = new AtomicInteger();
+        cache.get("default", "environment:Test", (projectId, revision) -> {
+            viewLoads.incrementAndGet();
+            return Map.of("revision", revision);
+        });
+
+        revisionService.markChanged("default", "feature");
+
+        assertEquals(2, viewLoads.get());
+        ProjectPayloadCache.Payload view = cache.get("default", "environment:Test", (projectId, revision) -> {
+            throw new AssertionError("Not rebuilt");
+        });
+        assertNotEquals(cache.get("default").etag(), view.etag());
+    }
+
+    @Test
+    void warmUp_LoadsEveryProjectWhenApplicationIsReady() throws Exception {
+        when(projectRepository.existsById(anyString())).thenReturn(true);
+        when(projectRepository.findAll()).thenReturn(List.of(project("default"), project("other")));
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(FeatureRevisionService.class, () -> revisionService);
+            context.registerBean(ProjectRepository.class, () -> projectRepository);
+            context.registerBean(PlatformTransactionManager.class, () -> mock(PlatformTransactionManager.class));
+            context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+            context.registerBean(ProjectPayloadCache.class);
+            context.refresh();
+            ProjectPayloadCache readyCache = context.getBean(ProjectPayloadCache.class);
+            readyCache.setLoader(this::load);
+
+            context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context,
+                    Duration.ZERO));
+
+            // Loaded once the coalesce window has passed
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!(readyCache.contains("default") && readyCache.contains("other"))
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(readyCache.contains("default"));
+            assertTrue(readyCache.contains("other"));
+            assertEquals(2, loads.get());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ch.redmoon.unchain.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseBroadcasterTest {
+
+    private final SseBroadcaster broadcaster = new SseBroadcaster();
+
+    /**
+     * Records written frames. A blocking emitter holds its first write until
+     * released and, like a write to a dead socket, ignores interrupts.
+     */
+    private static class StubEmitter extends SseEmitter {
+        private final BlockingQueue<Set<DataWithMediaType>> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private final CompletableFuture<Throwable> failure = new CompletableFuture<>();
+
+        StubEmitter(boolean blocking) {
+            this.release = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> frame) {
+            writing.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            sent.add(frame);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure.complete(ex);
+        }
+
+        Set<DataWithMediaType> next() throws InterruptedException {
+            Set<DataWithMediaType> frame = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "No frame written");
+            return frame;
+        }
+
+        void awaitWriting() throws InterruptedException {
+            assertTrue(writing.await(5, TimeUnit.SECONDS), "No write started");
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(String data) {
+        return SseEmitter.event().data(data);
+    }
+
+    private static String text(Set<DataWithMediaType> frame) {
+        return frame.stream().map(data -> data.getData().toString()).collect(Collectors.joining());
+    }
+
+    @Test
+    void broadcast_SharesOneFrameBetweenSubscribers() throws Exception {
+        StubEmitter first = new StubEmitter(false);
+        StubEmitter second = new StubEmitter(false);
+        broadcaster.subscribe(first, List.of("project:a"));
+        broadcaster.subscribe(second, List.of("project:a", "project:b"));
+
+        broadcaster.broadcast("project:a", event("changed"));
+
+        assertSame(first.next(), second.next());
+    }
+
+    @Test
+    void broadcast_EvictsSubscriberWhoseQueueOverflows() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "queueSize", 2);
+        StubEmitter slow = new StubEmitter(true);
+        broadcaster.subscribe(slow, List.of("project:a"));
+        broadcaster.broadcast("project:a", event("1"));
+        slow.awaitWriting();
+
+        broadcaster.broadcast("project:a", event("2"));
+        broadcaster.broadcast("project:a", event("3"));
+        assertTrue(broadcaster.hasSubscribers("project:a"));
+
+        broadcaster.broadcast("project:a", event("4"));
+        assertFalse(broadcaster.hasSubscribers("project:a"));
+
+        // Pending events are dropped, the client resumes from its last event ID
+        slow.release.countDown();
+        assertTrue(text(slow.next()).contains("1"));
+        assertNull(slow.sent.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void sendHeartbeats_EvictsAndFailsStalledSubscriber() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "maxWriteStallSeconds", 0L);
+        StubEmitter stalled = new StubEmitter(true);
+        broadcaster.subscribe(stalled, List.of("project:a"));
+        broadcaster.broadcast("project:a", event("1"));
+        stalled.awaitWriting();
+        Thread.sleep(10);
+
+        broadcaster.sendHeartbeats();
+
+        assertFalse(broadcaster.hasSubscribers("project:a"));
+        // Failed although the write is still blocked
+        assertInstanceOf(IOException.class, stalled.failure.get(5, TimeUnit.SECONDS));
+        stalled.release.countDown();
+    }
+
+    @Test
+    void sendHeartbeats_OnlyQueuesHeartbeatForIdleSubscribers() throws Exception {
+        StubEmitter idle = new StubEmitter(false);
+        StubEmitter busy = new StubEmitter(true);
+        broadcaster.subscribe(idle, List.of("project:a"));
+        broadcaster.subscribe(busy, List.of("project:b"));
+        broadcaster.broadcast("project:b", event("1"));
+        busy.awaitWriting();
+        broadcaster.broadcast("project:b", event("2"));
+
+        broadcaster.sendHeartbeats();
+
+        assertTrue(text(idle.next()).contains("heartbeat"));
+        busy.release.countDown();
+        assertTrue(text(busy.next()).contains("1"));
+        assertTrue(text(busy.next()).contains("2"));
+        assertNull(busy.sent.poll(200, TimeUnit.MILLISECONDS));
+        assertTrue(broadcaster.hasSubscribers("project:b"));
+    }
+}
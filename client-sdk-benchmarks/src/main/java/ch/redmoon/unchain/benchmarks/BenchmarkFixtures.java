@@ -0,0 +1,183 @@
+package ch.redmoon.unchain.benchmarks;
+
+import ch.redmoon.unchain.client.UnchainClient;
+import ch.redmoon.unchain.client.UnchainConfig;
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.client.model.Constraint;
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.FeatureResponse;
+import ch.redmoon.unchain.client.model.Strategy;
+import ch.redmoon.unchain.client.model.StrategyParameter;
+import ch.redmoon.unchain.client.model.Variant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic feature payloads and contexts shared by the benchmark suites.
+ */
+final class BenchmarkFixtures {
+    static final String PROJECT = "benchmark";
+    static final String ENVIRONMENT = "production";
+    static final String CONSTRAINT_FIELD = "attr";
+
+    private static final OffsetDateTime EPOCH = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Creates a client loaded with the given features through its public API.
+     * They are served once by a stub server, which is stopped before the client
+     * is returned, so only local evaluation is measured.
+     */
+    static UnchainClient newClient(List<Feature> features) {
+        HttpServer server;
+        try {
+            byte[] payload = new ObjectMapper().writeValueAsBytes(FeatureResponse.builder()
+                    .features(features)
+                    .revision(1L)
+                    .build());
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/projects/" + PROJECT + "/features", exchange -> {
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, payload.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(payload);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        server.start();
+        try {
+            UnchainClient client = new UnchainClient(UnchainConfig.builder()
+                    .apiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                    .environment(ENVIRONMENT)
+                    .projects(List.of(PROJECT))
+                    .environmentScoped(false)
+                    .refreshIntervalSeconds(3600)
+                    .waitforInit(true)
+                    .initWaitTimeSeconds(60)
+                    .build());
+            if (!client.isReady()) {
+                client.shutdown();
+                throw new IllegalStateException("Benchmark features were not loaded");
+            }
+            return client;
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    static String flagName(int index) {
+        return "flag-" + index;
+    }
+
+    static List<Feature> features(int count, String strategyName, List<Constraint> constraints) {
+        List<Feature> features = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Strategy strategy = strategy(strategyName, flagName(i));
+            strategy.setConstraints(constraints);
+
+            FeatureEnvironment env = new FeatureEnvironment();
+            env.setName(ENVIRONMENT);
+            env.setEnabled(true);
+            env.setStrategies(List.of(strategy));
+
+            Feature feature = new Feature();
+            feature.setName(flagName(i));
+            feature.setEnvironments(List.of(env));
+            feature.setVariants(List.of(variant("control", 500), variant("treatment", 500)));
+            features.add(feature);
+        }
+        return features;
+    }
+
+    private static Strategy strategy(String name, String groupId) {
+        Strategy strategy = new Strategy();
+        strategy.setName(name);
+        switch (name) {
+            case "gradualRollout", "flexibleRollout" -> {
+                strategy.getParameters().add(new StrategyParameter("percentage", "50"));
+                strategy.getParameters().add(new StrategyParameter("groupId", groupId));
+                strategy.getParameters().add(new StrategyParameter("stickiness", "userId"));
+            }
+            case "userWithId" -> {
+                StringBuilder userIds = new StringBuilder();
+                for (int i = 0; i < 50; i++) {
+                    userIds.append(i == 0 ? "" : ", ").append("user-").append(i * 7);
+                }
+                strategy.getParameters().add(new StrategyParameter("userIds", userIds.toString()));
+            }
+            default -> {
+            }
+        }
+        return strategy;
+    }
+
+    private static Variant variant(String name, int weight) {
+        Variant variant = new Variant();
+        variant.setName(name);
+        variant.setWeight(weight);
+        return variant;
+    }
+
+    static List<Constraint> constraints(Constraint.Operator operator, int listSize) {
+        List<String> values = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            values.add(constraintValue(operator, i));
+        }
+        return List.of(Constraint.builder()
+                .contextName(CONSTRAINT_FIELD)
+                .operator(operator)
+                .values(values)
+                .caseInsensitive(operator == Constraint.Operator.IN || operator == Constraint.Operator.NOT_IN)
+                .build());
+    }
+
+    /**
+     * Returns the i-th constraint value; contexts draw from twice the range, so
+     * roughly half of them match.
+     */
+    static String constraintValue(Constraint.Operator operator, int i) {
+        return switch (operator) {
+            case NUM_EQ, NUM_GT, NUM_GTE, NUM_LT, NUM_LTE -> String.valueOf(i * 10);
+            case DATE_AFTER, DATE_BEFORE -> EPOCH.plusDays(i).toString();
+            case SEMVER_EQ, SEMVER_GT, SEMVER_LT -> "1." + i + ".0";
+            case STR_STARTS_WITH, STR_ENDS_WITH, STR_CONTAINS -> "segment-" + i + "-";
+            default -> "Value-" + i;
+        };
+    }
+
+    static UnchainContext[] contexts(int count, Constraint.Operator operator, int listSize) {
+        Random random = new Random(42);
+        UnchainContext[] contexts = new UnchainContext[count];
+        for (int i = 0; i < count; i++) {
+            UnchainContext.UnchainContextBuilder builder = UnchainContext.builder()
+                    .userId("user-" + random.nextInt(1_000_000))
+                    .sessionId("session-" + random.nextInt(1_000_000));
+            if (operator != null) {
+                String value = constraintValue(operator, random.nextInt(Math.max(1, listSize * 2)));
+                if (operator == Constraint.Operator.STR_STARTS_WITH || operator == Constraint.Operator.STR_CONTAINS) {
+                    value = value + "suffix";
+                }
+                builder.property(CONSTRAINT_FIELD, value.toLowerCase());
+            }
+            contexts[i] = builder.build();
+        }
+        return contexts;
+    }
+}
@@ -0,0 +1,25 @@
+package ch.redmoon.unchain.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line
+ * options and always adds the GC profiler, so every suite reports the
+ * allocation rate ({@code gc.alloc.rate.norm}) next to throughput and latency
+ * percentiles.
+ * <p>
+ * Example: {@code java -jar client-sdk-benchmarks/target/benchmarks.jar UnchainClientBenchmark -p flagCount=1000}
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,67 @@
+package ch.redmoon.unchain.benchmarks;
+
+import ch.redmoon.unchain.client.UnchainClient;
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.client.model.Constraint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link UnchainClient#isEnabled} for flags whose strategy carries a
+ * constraint, by operator and number of constraint values.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstrainedFlagBenchmark {
+
+    private static final int FLAGS = 1000;
+    private static final int CONTEXTS = 1024;
+
+    @Param({ "IN", "NOT_IN", "STR_STARTS_WITH", "NUM_GT", "DATE_AFTER", "SEMVER_GT" })
+    public Constraint.Operator operator;
+
+    @Param({ "1", "10", "100", "1000" })
+    public int listSize;
+
+    private UnchainClient client;
+    private String[] flagNames;
+    private UnchainContext[] contexts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = BenchmarkFixtures.newClient(BenchmarkFixtures.features(FLAGS, "default",
+                BenchmarkFixtures.constraints(operator, listSize)));
+
+        flagNames = new String[FLAGS];
+        for (int i = 0; i < FLAGS; i++) {
+            flagNames[i] = BenchmarkFixtures.flagName(i);
+        }
+        contexts = BenchmarkFixtures.contexts(CONTEXTS, operator, listSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+
+    @Benchmark
+    public boolean isEnabled(Cursor cursor) {
+        int i = cursor.next();
+        return client.isEnabled(BenchmarkFixtures.PROJECT, flagNames[i % FLAGS], BenchmarkFixtures.ENVIRONMENT,
+                contexts[i % CONTEXTS]);
+    }
+}
@@ -0,0 +1,95 @@
+package ch.redmoon.unchain.benchmarks;
+
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.client.model.Constraint;
+import ch.redmoon.unchain.client.strategy.CompiledConstraints;
+import ch.redmoon.unchain.client.strategy.ConstraintEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConstraintEvaluator} in isolation: evaluating a precompiled
+ * constraint list, evaluating it through the static API (which compiles on
+ * every call) and compiling it.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstraintEvaluatorBenchmark {
+
+    private static final int CONTEXTS = 1024;
+
+    @Param({ "IN", "NOT_IN", "STR_CONTAINS", "NUM_GT", "DATE_AFTER", "SEMVER_GT" })
+    public Constraint.Operator operator;
+
+    @Param({ "1", "10", "100", "1000" })
+    public int listSize;
+
+    private List<Constraint> constraints;
+    private CompiledConstraints compiled;
+    private UnchainContext[] contexts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> values = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            values.add(value(i));
+        }
+        constraints = List.of(Constraint.builder()
+                .contextName("attr")
+                .operator(operator)
+                .values(values)
+                .build());
+        compiled = ConstraintEvaluator.compile(constraints);
+
+        Random random = new Random(42);
+        contexts = new UnchainContext[CONTEXTS];
+        for (int i = 0; i < CONTEXTS; i++) {
+            contexts[i] = UnchainContext.builder()
+                    .userId("user-" + i)
+                    .property("attr", value(random.nextInt(listSize * 2)))
+                    .build();
+        }
+    }
+
+    private String value(int i) {
+        return switch (operator) {
+            case NUM_GT -> String.valueOf(i * 10);
+            case DATE_AFTER -> "2024-01-01T00:00:00Z".replace("2024", String.valueOf(2024 + i % 500));
+            case SEMVER_GT -> "1." + i + ".0";
+            case STR_CONTAINS -> "segment-" + i + "-";
+            default -> "value-" + i;
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next() {
+            return next++ & (CONTEXTS - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean compiled(Cursor cursor) {
+        return compiled.test(contexts[cursor.next()]);
+    }
+
+    @Benchmark
+    public boolean evaluate(Cursor cursor) {
+        return ConstraintEvaluator.evaluate(constraints, contexts[cursor.next()]);
+    }
+
+    @Benchmark
+    public CompiledConstraints compile() {
+        return ConstraintEvaluator.compile(constraints);
+    }
+}
@@ -0,0 +1,99 @@
+package ch.redmoon.unchain.benchmarks;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.FlagHandle;
+import ch.redmoon.unchain.client.UnchainClient;
+import ch.redmoon.unchain.client.UnchainContext;
+import ch.redmoon.unchain.client.model.Variant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link UnchainClient#isEnabled} and
+ * {@link UnchainClient#getVariant} on a populated snapshot, by number of flags
+ * and strategy type.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnchainClientBenchmark {
+
+    private static final int CONTEXTS = 1024;
+
+    @Param({ "10", "1000", "50000" })
+    public int flagCount;
+
+    @Param({ "default", "gradualRollout", "userWithId", "flexibleRollout" })
+    public String strategy;
+
+    private UnchainClient client;
+    private String[] flagNames;
+    private FlagHandle[] handles;
+    private UnchainContext[] contexts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = BenchmarkFixtures.newClient(BenchmarkFixtures.features(flagCount, strategy, List.of()));
+
+        flagNames = new String[flagCount];
+        handles = new FlagHandle[flagCount];
+        for (int i = 0; i < flagCount; i++) {
+            flagNames[i] = BenchmarkFixtures.flagName(i);
+            handles[i] = client.flag(BenchmarkFixtures.PROJECT, flagNames[i], BenchmarkFixtures.ENVIRONMENT);
+        }
+        contexts = BenchmarkFixtures.contexts(CONTEXTS, null, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+
+    @Benchmark
+    public boolean isEnabled(Cursor cursor) {
+        int i = cursor.next();
+        return client.isEnabled(BenchmarkFixtures.PROJECT, flagNames[i % flagNames.length],
+                BenchmarkFixtures.ENVIRONMENT, contexts[i % CONTEXTS]);
+    }
+
+    @Benchmark
+    public boolean isEnabledByHandle(Cursor cursor) {
+        int i = cursor.next();
+        return handles[i % handles.length].isEnabled(contexts[i % CONTEXTS]);
+    }
+
+    @Benchmark
+    public Variant getVariant(Cursor cursor) {
+        int i = cursor.next();
+        return client.getVariant(BenchmarkFixtures.PROJECT, flagNames[i % flagNames.length],
+                BenchmarkFixtures.ENVIRONMENT, contexts[i % CONTEXTS]);
+    }
+
+    @Benchmark
+    public Map<String, EvaluationResult> evaluateAll(Cursor cursor) {
+        return client.evaluateAll(BenchmarkFixtures.PROJECT, BenchmarkFixtures.ENVIRONMENT,
+                contexts[cursor.next() % CONTEXTS]);
+    }
+
+    @Benchmark
+    public boolean isEnabledMissingFlag(Cursor cursor) {
+        int i = cursor.next();
+        return client.isEnabled(BenchmarkFixtures.PROJECT, "missing-flag", BenchmarkFixtures.ENVIRONMENT,
+                contexts[i % CONTEXTS]);
+    }
+}
@@ -0,0 +1,178 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.metrics.MetricsRegistry;
+import ch.redmoon.unchain.client.snapshot.CompiledEnvironment;
+import ch.redmoon.unchain.client.snapshot.CompiledFeature;
+import ch.redmoon.unchain.client.snapshot.CompiledResults;
+import ch.redmoon.unchain.client.snapshot.CompiledStrategy;
+import ch.redmoon.unchain.client.snapshot.CompiledVariants;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+import ch.redmoon.unchain.client.snapshot.SnapshotCompiler;
+import ch.redmoon.unchain.client.strategy.DefaultStrategyEvaluator;
+import ch.redmoon.unchain.client.strategy.GradualRolloutStrategyEvaluator;
+import ch.redmoon.unchain.client.strategy.Murmur3;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+import ch.redmoon.unchain.client.strategy.UserWithIdStrategyEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates compiled flags: matches the strategies of an environment against
+ * a context and selects the variant. Besides the registered strategy
+ * evaluators it holds no state, so one engine can evaluate any number of
+ * snapshots concurrently, be it in {@link UnchainClient} or in a server
+ * evaluating flags on behalf of clients that cannot embed the SDK.
+ */
+public class EvaluationEngine {
+    private static final Logger log = LoggerFactory.getLogger(EvaluationEngine.class);
+
+    private final Map<String, StrategyEvaluator> evaluators = new ConcurrentHashMap<>();
+    // Set once a registered evaluator is replaced, from then on compiled evaluators may be stale
+    private volatile boolean overridden;
+
+    /**
+     * Creates an engine with the built-in strategy evaluators registered.
+     */
+    public EvaluationEngine() {
+        registerEvaluator(new DefaultStrategyEvaluator());
+        registerEvaluator(new GradualRolloutStrategyEvaluator());
+        registerEvaluator(new UserWithIdStrategyEvaluator());
+        // flexibleRollout is often an alias or uses very similar logic
+        registerEvaluator(new GradualRolloutStrategyEvaluator() {
+            @Override
+            public String getName() {
+                return "flexibleRollout";
+            }
+        });
+    }
+
+    /**
+     * Registers an evaluator, replacing the one of the same name. Takes effect
+     * for snapshots compiled before as well.
+     */
+    public void registerEvaluator(StrategyEvaluator evaluator) {
+        if (evaluators.put(evaluator.getName(), evaluator) != null) {
+            overridden = true;
+        }
+    }
+
+    public StrategyEvaluator getEvaluator(String name) {
+        return evaluators.get(name);
+    }
+
+    /**
+     * Returns a compiler that resolves strategies to the evaluators of this
+     * engine.
+     *
+     * @see SnapshotCompiler#SnapshotCompiler(java.util.function.Function, MetricsRegistry, String)
+     */
+    public SnapshotCompiler newCompiler(MetricsRegistry metricsRegistry, String defaultEnvironment) {
+        return new SnapshotCompiler(evaluators::get, metricsRegistry, defaultEnvironment);
+    }
+
+    /**
+     * Evaluates a flag of a snapshot in an environment.
+     */
+    public EvaluationResult evaluate(ProjectSnapshot snapshot, String featureName, String environment,
+            UnchainContext context) {
+        CompiledFeature feature = snapshot.getFeature(featureName);
+        if (feature == null) {
+            return EvaluationResult.FLAG_NOT_FOUND;
+        }
+        return evaluate(feature, feature.getEnvironment(environment), context);
+    }
+
+    /**
+     * Evaluates a flag in one of its environments, which is {@code null} if the
+     * flag is not configured there. Does not record any usage.
+     */
+    public EvaluationResult evaluate(CompiledFeature feature, CompiledEnvironment env, UnchainContext context) {
+        if (env == null || !env.isEnabled()) {
+            if (log.isTraceEnabled()) {
+                log.trace("Feature {} is disabled in environment: {}", feature.getName(),
+                        env != null ? env.getName() : null);
+            }
+            return EvaluationResult.DISABLED;
+        }
+
+        CompiledResults results;
+        if (env.getStrategyCount() == 0) {
+            // If enabled but no strategies, we treat it as always ON
+            results = env.getResults();
+        } else {
+            CompiledStrategy matchingStrategy = findMatchingStrategy(env, context);
+            if (matchingStrategy == null) {
+                return EvaluationResult.NO_MATCHING_STRATEGY;
+            }
+            results = matchingStrategy.getResults();
+        }
+
+        return results.get(selectVariant(feature.getName(), results.getVariants(), context));
+    }
+
+    private CompiledStrategy findMatchingStrategy(CompiledEnvironment env, UnchainContext context) {
+        for (int i = 0; i < env.getStrategyCount(); i++) {
+            CompiledStrategy strategy = env.getStrategy(i);
+            // Check constraints first
+            if (!strategy.getConstraints().test(context)) {
+                log.trace("Strategy {} excluded due to constraints", strategy.getName());
+                continue;
+            }
+
+            StrategyEvaluator evaluator = strategy.getEvaluator();
+            if ((evaluator == null || overridden) && strategy.getName() != null) {
+                // Evaluator may have been registered or replaced after the snapshot was compiled
+                evaluator = evaluators.get(strategy.getName());
+            }
+            if (evaluator != null) {
+                boolean enabled = evaluator.isEnabled(strategy.getParameters(), context);
+                log.trace("Strategy {} evaluated to: {}", strategy.getName(), enabled);
+                if (enabled) {
+                    return strategy;
+                }
+            } else {
+                log.warn("No evaluator found for strategy: {}", strategy.getName());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the variant assigned to the context, or -1 if there
+     * is none.
+     */
+    private int selectVariant(String featureName, CompiledVariants variants, UnchainContext context) {
+        if (variants.isEmpty()) {
+            return -1;
+        }
+
+        int totalWeight = variants.getTotalWeight();
+        if (totalWeight == 0) {
+            log.warn("Total variant weight is 0 for feature: {}", featureName);
+            return -1;
+        }
+
+        // Stickiness logic (simplified)
+        String stickyValue = variants.getStickiness() != null
+                ? context.getProperty(variants.getStickiness())
+                : context != null ? context.getUserId() : null; // Default stickiness
+
+        if (stickyValue == null)
+            stickyValue = "anonymous";
+
+        long hash = Murmur3.hash(featureName, stickyValue);
+        int normalized = (int) (hash % totalWeight);
+
+        int index = variants.indexOf(normalized);
+        if (log.isTraceEnabled()) {
+            log.trace("Variant selection for {}: hash={}, stickyValue={}", featureName, normalized, stickyValue);
+            if (index >= 0) {
+                log.trace("Selected variant: {} for feature: {}", variants.get(index).getName(), featureName);
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,45 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.model.Variant;
+import lombok.Value;
+
+/**
+ * Outcome of evaluating a flag for one context: whether it is enabled, the
+ * strategy that enabled it, the variant assigned to the context and why.
+ * <p>
+ * Instances are immutable and shared: results for a given strategy and variant
+ * are built when a snapshot is compiled, so evaluations do not allocate.
+ */
+@Value
+public class EvaluationResult {
+    static final EvaluationResult FLAG_NOT_FOUND = new EvaluationResult(false, null, null, Reason.FLAG_NOT_FOUND);
+    static final EvaluationResult DISABLED = new EvaluationResult(false, null, null, Reason.DISABLED);
+    static final EvaluationResult NO_MATCHING_STRATEGY = new EvaluationResult(false, null, null,
+            Reason.NO_MATCHING_STRATEGY);
+
+    boolean enabled;
+    /**
+     * The selected variant, or {@code null} if the flag is disabled or defines
+     * no variants.
+     */
+    Variant variant;
+    /**
+     * Name of the first strategy that matched, or {@code null} if none did or
+     * the environment has no strategies.
+     */
+    String strategyName;
+    Reason reason;
+
+    public enum Reason {
+        /** The flag is not part of the project snapshot. */
+        FLAG_NOT_FOUND,
+        /** The flag is disabled or not configured in the environment. */
+        DISABLED,
+        /** None of the environment's strategies matched the context. */
+        NO_MATCHING_STRATEGY,
+        /** The flag is enabled in the environment without any strategies. */
+        NO_STRATEGIES,
+        /** A strategy matched the context. */
+        STRATEGY_MATCH
+    }
+}
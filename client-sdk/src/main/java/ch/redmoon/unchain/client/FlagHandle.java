@@ -0,0 +1,80 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.model.Variant;
+import ch.redmoon.unchain.client.snapshot.CompiledEnvironment;
+import ch.redmoon.unchain.client.snapshot.CompiledFeature;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+
+/**
+ * A flag of a project and environment, bound once via
+ * {@link UnchainClient#flag(String, String, String)}. The handle holds the
+ * flag's compiled entry of the current snapshot and is rebound whenever a new
+ * snapshot of the project is published, so evaluating through it needs neither
+ * key building nor map lookups. If the flag is removed, the handle evaluates as
+ * not found until it is added again.
+ */
+public final class FlagHandle {
+    private final UnchainClient client;
+    private final String projectId;
+    private final String featureName;
+    private final String environment;
+    private volatile Binding binding;
+
+    FlagHandle(UnchainClient client, String projectId, String featureName, String environment) {
+        this.client = client;
+        this.projectId = projectId;
+        this.featureName = featureName;
+        this.environment = environment;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getFeatureName() {
+        return featureName;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public boolean isEnabled(UnchainContext context) {
+        return evaluate(context).isEnabled();
+    }
+
+    public Variant getVariant(UnchainContext context) {
+        return evaluate(context).getVariant();
+    }
+
+    public EvaluationResult evaluate(UnchainContext context) {
+        Binding current = binding;
+        if (current == null) {
+            return EvaluationResult.FLAG_NOT_FOUND;
+        }
+        return client.evaluate(projectId, environment, current.feature, current.environment, context);
+    }
+
+    /**
+     * Binds the handle to the flag's entry in the given snapshot, or unbinds it
+     * if the snapshot does not contain the flag.
+     */
+    void bind(ProjectSnapshot snapshot) {
+        CompiledFeature feature = snapshot != null ? snapshot.getFeature(featureName) : null;
+        Binding current = binding;
+        if (current != null && current.feature == feature) {
+            return;
+        }
+        binding = feature != null ? new Binding(feature, feature.getEnvironment(environment)) : null;
+    }
+
+    private static final class Binding {
+        final CompiledFeature feature;
+        final CompiledEnvironment environment;
+
+        Binding(CompiledFeature feature, CompiledEnvironment environment) {
+            this.feature = feature;
+            this.environment = environment;
+        }
+    }
+}
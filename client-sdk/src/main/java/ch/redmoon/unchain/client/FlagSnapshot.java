@@ -0,0 +1,58 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.model.Variant;
+import ch.redmoon.unchain.client.snapshot.CompiledFeature;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+
+import java.util.Map;
+
+/**
+ * The flags of a project and environment as of one snapshot, pinned via
+ * {@link UnchainClient#snapshot(String, String)}. Evaluations through it never
+ * observe a refresh published after it was taken, so several flags evaluated
+ * for one request are consistent with each other. Usage is recorded as for
+ * evaluations through the client.
+ */
+public final class FlagSnapshot {
+    private final UnchainClient client;
+    private final ProjectSnapshot snapshot;
+    private final String environment;
+
+    FlagSnapshot(UnchainClient client, ProjectSnapshot snapshot, String environment) {
+        this.client = client;
+        this.snapshot = snapshot;
+        this.environment = environment;
+    }
+
+    public String getProjectId() {
+        return snapshot.getProjectId();
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public boolean isEnabled(String featureName, UnchainContext context) {
+        return evaluate(featureName, context).isEnabled();
+    }
+
+    public Variant getVariant(String featureName, UnchainContext context) {
+        return evaluate(featureName, context).getVariant();
+    }
+
+    public EvaluationResult evaluate(String featureName, UnchainContext context) {
+        CompiledFeature feature = snapshot.getFeature(featureName);
+        if (feature == null) {
+            return EvaluationResult.FLAG_NOT_FOUND;
+        }
+        return client.evaluate(snapshot.getProjectId(), environment, feature, feature.getEnvironment(environment),
+                context);
+    }
+
+    /**
+     * @see UnchainClient#evaluateAll(String, String, UnchainContext)
+     */
+    public Map<String, EvaluationResult> evaluateAll(UnchainContext context) {
+        return client.evaluateAll(snapshot, environment, context);
+    }
+}
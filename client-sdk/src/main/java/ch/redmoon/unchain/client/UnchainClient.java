@@ -1,10 +1,17 @@
 package ch.redmoon.unchain.client;
 
+import ch.redmoon.unchain.client.metrics.FlagMetrics;
+import ch.redmoon.unchain.client.metrics.MetricsRegistry;
+import ch.redmoon.unchain.client.metrics.MetricsShipper;
 import ch.redmoon.unchain.client.model.*;
-import ch.redmoon.unchain.client.strategy.DefaultStrategyEvaluator;
-import ch.redmoon.unchain.client.strategy.GradualRolloutStrategyEvaluator;
+import ch.redmoon.unchain.client.snapshot.CompiledEnvironment;
+import ch.redmoon.unchain.client.snapshot.CompiledFeature;
+import ch.redmoon.unchain.client.snapshot.CompiledPayload;
+import ch.redmoon.unchain.client.snapshot.PayloadParser;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+import ch.redmoon.unchain.client.snapshot.SnapshotCache;
+import ch.redmoon.unchain.client.snapshot.SnapshotCompiler;
 import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
-import ch.redmoon.unchain.client.strategy.UserWithIdStrategyEvaluator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
@@ -13,28 +20,61 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.time.OffsetDateTime;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 public class UnchainClient {
     private final UnchainConfig config;
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
-    private final Map<String, StrategyEvaluator> evaluators = new HashMap<>();
-    private final Map<String, Feature> featureCache = new ConcurrentHashMap<>();
-    private final Map<String, AtomicInteger> metricsMap = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler;
+    private final EvaluationEngine engine = new EvaluationEngine();
+    private final SnapshotCompiler snapshotCompiler;
+    private final PayloadParser payloadParser;
+    // Immutable map of the current snapshot per project, replaced as a whole on
+    // every publication so readers need a single volatile read and no locking
+    private volatile Map<String, ProjectSnapshot> snapshots = Map.of();
+    private final Map<String, FlagHandle> handles = new ConcurrentHashMap<>();
+    // ETag of the payload each snapshot was compiled from, for conditional polling
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    // Revision of each snapshot, so refreshes only fetch the features changed since
+    private final Map<String, Long> revisions = new ConcurrentHashMap<>();
+    // Serializes snapshot publication with handle binding, so no handle is left
+    // on an outdated snapshot
+    private final Object publishLock = new Object();
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final MetricsShipper metricsShipper;
+    // Last fetched payloads on disk, null if not configured
+    private final SnapshotCache snapshotCache;
+    private final ScheduledThreadPoolExecutor scheduler;
+    // Projects without any features loaded yet; ready completes once empty
+    private final Set<String> pendingProjects = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
     private static final Logger log = LoggerFactory.getLogger(UnchainClient.class);
     private static final String VERSION = loadVersion();
-    private long currentBackoff = 10_000;
+    // ID of the last complete event received over SSE
+    private volatile String lastEventId;
     private volatile int currentPollIntervalSeconds;
     private final List<java.util.function.Consumer<String>> changeListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
 
@@ -60,36 +100,45 @@ public class UnchainClient {
         this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
         this.currentPollIntervalSeconds = (int) config.getRefreshIntervalSeconds();
+        this.snapshotCompiler = engine.newCompiler(metricsRegistry, config.getEnvironment());
+        this.payloadParser = new PayloadParser(objectMapper, snapshotCompiler);
 
-        registerEvaluator(new DefaultStrategyEvaluator());
-        registerEvaluator(new GradualRolloutStrategyEvaluator());
-        registerEvaluator(new UserWithIdStrategyEvaluator());
-        // flexibleRollout is often an alias or uses very similar logic
-        registerEvaluator(new GradualRolloutStrategyEvaluator() {
-            @Override
-            public String getName() {
-                return "flexibleRollout";
-            }
-        });
+        this.metricsShipper = new MetricsShipper(metricsRegistry, objectMapper, this::postMetrics,
+                config.isMetricsCompressionEnabled(), config.getMetricsCompressionMinBytes(),
+                config.getMetricsSpoolFile(), config.getMetricsSpoolMaxBytes());
+
+        pendingProjects.addAll(config.getProjects());
+        if (pendingProjects.isEmpty()) {
+            ready.complete(null);
+        }
 
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        // Serve the cached state until the first fetch completes; loaded before
+        // the refresh loop starts so it never replaces fresher state
+        this.snapshotCache = config.getSnapshotCacheDir() != null
+                ? new SnapshotCache(config.getSnapshotCacheDir(), objectMapper, snapshotView())
+                : null;
+        loadCachedSnapshots();
+
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
             Thread t = new Thread(r, "unchain-refresh-scheduler");
             t.setDaemon(true);
             return t;
         });
+        // Pending refreshes must not delay shutdown
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
 
         // Use recursive scheduling to allow dynamic interval updates
         this.scheduler.schedule(this::runRefreshLoop, 0, TimeUnit.SECONDS);
-        this.scheduler.scheduleAtFixedRate(this::sendMetrics, 30, 10 * 60, TimeUnit.SECONDS);
-
-        if (config.isWaitforInit()) {
-            try {
-                // simple wait logic - could be improved with a latch
-                Thread.sleep(Math.min(config.getInitWaitTimeSeconds() * 1000, 3000));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("Interrupted while waiting for initial fetch");
-            }
+        long flushInterval = config.getMetricsFlushIntervalSeconds();
+        this.scheduler.scheduleWithFixedDelay(this::flushMetrics, Math.min(30, flushInterval), flushInterval,
+                TimeUnit.SECONDS);
+        long pendingCheckInterval = Math.min(10, flushInterval);
+        this.scheduler.scheduleWithFixedDelay(this::flushMetricsIfFull, pendingCheckInterval, pendingCheckInterval,
+                TimeUnit.SECONDS);
+
+        if (config.isWaitforInit() && !awaitReady(Duration.ofSeconds(config.getInitWaitTimeSeconds()))) {
+            log.warn("Features not loaded within {} seconds, continuing in the background",
+                    config.getInitWaitTimeSeconds());
         }
 
         if (config.isSseEnabled()) {
@@ -97,6 +146,68 @@ public class UnchainClient {
         }
     }
 
+    /**
+     * Publishes the cached payloads of the configured projects.
+     */
+    private void loadCachedSnapshots() {
+        if (snapshotCache == null) {
+            return;
+        }
+        int loaded = 0;
+        for (String projectId : config.getProjects()) {
+            Optional<SnapshotCache.Entry> entry = snapshotCache.load(projectId);
+            if (entry.isPresent()) {
+                publish(projectId, snapshotCompiler.compile(projectId, entry.get().features()));
+                updateRevision(projectId, entry.get().revision());
+                if (entry.get().etag() != null) {
+                    etags.put(projectId, entry.get().etag());
+                }
+                markReady(projectId);
+                loaded++;
+            }
+        }
+        log.info("Loaded cached features of {} of {} projects", loaded, config.getProjects().size());
+    }
+
+    /**
+     * Returns a future that completes once the features of every configured
+     * project have been loaded, either fetched or from the snapshot cache.
+     * Failed fetches are retried in the background and do not complete it.
+     */
+    public CompletableFuture<Void> ready() {
+        // A copy, so callers cannot complete or cancel the client's future
+        return ready.copy();
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Waits until the features of every configured project have been loaded.
+     * Returns as soon as they are, without waiting for the full timeout.
+     *
+     * @return whether the client is ready
+     */
+    public boolean awaitReady(Duration timeout) {
+        try {
+            ready.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void markReady(String projectId) {
+        if (pendingProjects.remove(projectId) && pendingProjects.isEmpty()) {
+            log.info("Features of all projects loaded");
+            ready.complete(null);
+        }
+    }
+
     private void runRefreshLoop() {
         if (scheduler.isShutdown())
             return;
@@ -112,90 +223,112 @@ public class UnchainClient {
     }
 
     private void startSseConnection() {
-        new Thread(this::connectSse, "unchain-sse-client").start();
+        Thread.ofVirtual().name("unchain-sse-client").start(this::connectSse);
     }
 
+    /**
+     * Holds one SSE connection for all configured projects and applies the
+     * events of each project as they arrive. Reconnects until shutdown. Falls
+     * back to one connection per project on servers without multiplexed streams.
+     * Streams are scoped to the environment like fetches are.
+     */
     private void connectSse() {
-        while (!scheduler.isShutdown()) {
-            boolean serverNotImplemented = false;
+        String query = "projects=" + URLEncoder.encode(String.join(",", config.getProjects()), StandardCharsets.UTF_8);
+        String environment = scopedEnvironment();
+        if (environment != null) {
+            query += "&environment=" + URLEncoder.encode(environment, StandardCharsets.UTF_8).replace("+", "%20");
+            if (config.isFetchEnabledOnly()) {
+                query += "&enabledOnly=true";
+            }
+        }
+        URI url = URI.create(config.getApiUrl().replaceAll("/$", "") + "/features/stream?" + query);
+        boolean notFound = runSseLoop(url, "projects " + config.getProjects(), true, this::onSseEvent, true);
+        if (notFound) {
+            log.warn("Server does not support multiplexed SSE streams, connecting to the stream of each project");
             for (String projectId : config.getProjects()) {
-                try {
-                    URI url = URI.create(
-                            config.getApiUrl().replaceAll("/$", "") + "/projects/" + projectId + "/features/stream");
-                    String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
-
-                    log.info("Connecting to SSE stream for project: {}", projectId);
-                    HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                            .uri(url)
-                            .header("Accept", "text/event-stream")
-                            .header("User-Agent", "unchain-java-client/" + VERSION);
-
-                    if (token != null) {
-                        requestBuilder.header("Authorization", "Bearer " + token);
-                    }
+                URI projectUrl = URI.create(config.getApiUrl().replaceAll("/$", "") + "/projects/"
+                        + URLEncoder.encode(projectId, StandardCharsets.UTF_8).replace("+", "%20")
+                        + "/features/stream");
+                Thread.ofVirtual().name("unchain-sse-client-" + projectId).start(() -> runSseLoop(projectUrl,
+                        "project " + projectId, false, (name, data) -> onProjectSseEvent(projectId, name, data),
+                        false));
+            }
+        }
+    }
 
-                    // Use synchronous send for easier control flow and stream handling in this
-                    // dedicated thread
-                    HttpRequest request = requestBuilder.build();
-                    try {
-                        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
-
-                        if (response.statusCode() == 501) {
-                            log.warn("Server returned 501 Not Implemented for SSE. Disabling SSE for project: {}",
-                                    projectId);
-                            serverNotImplemented = true;
-                            break; // Stop trying other projects if server doesn't support it globally?
-                            // Usually if one 501s, all will.
-                        }
-
-                        if (response.statusCode() == 200) {
-                            currentBackoff = Math.max(10_000, currentBackoff / 2); // Decay backoff on success (AIMD:
-                                                                                   // add 25% on error, 50% decrease on
-                                                                                   // success)
-                            log.info("SSE Connected to project: {}. Backoff adjusted to {} s", projectId,
-                                    currentBackoff / 1000);
-                            response.body().forEach(line -> {
-                                if (line.startsWith("data:")) {
-                                    String data = line.substring(5).trim();
-                                    if (!data.isEmpty()) {
-                                        try {
-                                            FeatureResponse fr = objectMapper.readValue(data, FeatureResponse.class);
-                                            if (fr.getFeatures() != null) {
-                                                for (Feature f : fr.getFeatures()) {
-                                                    featureCache.put(projectId + ":" + f.getName(), f);
-                                                }
-                                                log.debug("Updated features from SSE for project: {}", projectId);
-                                                notifyListeners(projectId);
-                                            }
-                                        } catch (Exception e) {
-                                            log.error("Failed to parse SSE data", e);
-                                        }
-                                    }
-                                }
-                            });
-                        } else if (response.statusCode() == 429) {
-                            long nextBackoff = (long) (currentBackoff * 1.25);
-                            currentBackoff = Math.min(nextBackoff, 60 * 60 * 1000); // Max 60 minutes
-                            log.warn("Server returned 429 Too Many Requests. Increasing backoff to {} s",
-                                    currentBackoff / 1000);
-                        } else {
-                            log.warn("SSE Connection failed with status: {}", response.statusCode());
-                        }
-                    } catch (IOException e) {
-                        log.error("SSE Connection IO error for project {}", projectId, e);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+    /**
+     * Connects to a stream and dispatches its events, reconnecting with backoff
+     * until shutdown or until the server does not support SSE.
+     *
+     * @param resumable  whether the stream has event IDs to resume from
+     * @param stopOn404  stop instead of retrying if the stream does not exist
+     * @return whether the loop stopped because the stream does not exist
+     */
+    private boolean runSseLoop(URI url, String description, boolean resumable,
+            BiConsumer<String, String> onEvent, boolean stopOn404) {
+        long currentBackoff = 10_000;
+        while (!scheduler.isShutdown()) {
+            try {
+                String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
 
-                } catch (Exception e) {
-                    log.error("SSE Connection error for project {}", projectId, e);
+                log.info("Connecting to SSE stream for {}", description);
+                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                        .uri(url)
+                        .header("Accept", "text/event-stream")
+                        .header("User-Agent", "unchain-java-client/" + VERSION);
+                if (config.isCompressionEnabled()) {
+                    requestBuilder.header("Accept-Encoding", "gzip");
+                }
+
+                if (token != null) {
+                    requestBuilder.header("Authorization", "Bearer " + token);
+                }
+                if (resumable && lastEventId != null) {
+                    // Resume where the previous connection ended
+                    requestBuilder.header("Last-Event-ID", lastEventId);
+                }
+
+                // Use synchronous send for easier control flow and stream handling in this
+                // dedicated thread
+                HttpRequest request = requestBuilder.build();
+                var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                }
+
+                if (response.statusCode() == 501) {
+                    log.warn("Server returned 501 Not Implemented for SSE. SSE disabled.");
+                    return false;
+                }
+                if (response.statusCode() == 404 && stopOn404) {
+                    return true;
                 }
-            }
 
-            if (serverNotImplemented) {
-                log.warn("SSE disabled due to server 501 response.");
+                if (response.statusCode() == 200) {
+                    currentBackoff = Math.max(10_000, currentBackoff / 2); // Decay backoff on success (AIMD:
+                                                                           // add 25% on error, 50% decrease on
+                                                                           // success)
+                    log.info("SSE Connected to {}. Backoff adjusted to {} s", description, currentBackoff / 1000);
+                    InputStream body = decode(response.headers(), response.body());
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                        readSseEvents(reader.lines(), resumable, onEvent);
+                    }
+                } else if (response.statusCode() == 429) {
+                    long nextBackoff = (long) (currentBackoff * 1.25);
+                    currentBackoff = Math.min(nextBackoff, 60 * 60 * 1000); // Max 60 minutes
+                    log.warn("Server returned 429 Too Many Requests. Increasing backoff to {} s",
+                            currentBackoff / 1000);
+                } else {
+                    log.warn("SSE Connection to {} failed with status: {}", description, response.statusCode());
+                }
+            } catch (IOException e) {
+                log.error("SSE Connection IO error", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 break;
+            } catch (Exception e) {
+                log.error("SSE Connection error", e);
             }
 
             // Reconnect backoff - 10 seconds default, exponential if 429
@@ -206,6 +339,101 @@ public class UnchainClient {
                 break;
             }
         }
+        return false;
+    }
+
+    /**
+     * Dispatches each event of the stream. Multi-line data fields are joined as
+     * per the SSE specification.
+     */
+    private void readSseEvents(Stream<String> lines, boolean resumable, BiConsumer<String, String> onEvent) {
+        StringBuilder data = new StringBuilder();
+        String eventName = null;
+        String eventId = null;
+        Iterator<String> it = lines.iterator();
+        while (it.hasNext()) {
+            String line = it.next();
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    onEvent.accept(eventName != null ? eventName : "message", data.toString());
+                }
+                if (resumable && eventId != null) {
+                    lastEventId = eventId;
+                }
+                data.setLength(0);
+                eventName = null;
+                eventId = null;
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line.substring(5).trim());
+            } else if (line.startsWith("event:")) {
+                eventName = line.substring(6).trim();
+            } else if (line.startsWith("id:")) {
+                eventId = line.substring(3).trim();
+            }
+        }
+    }
+
+    /**
+     * Applies an event of the single-project stream of older servers, each of
+     * which carries all features of the project.
+     */
+    void onProjectSseEvent(String projectId, String eventName, String data) {
+        if (!"message".equals(eventName)) {
+            log.debug("Ignoring SSE event of unknown type: {}", eventName);
+            return;
+        }
+        try {
+            CompiledPayload payload = payloadParser.parse(data, projectId, snapshotCache != null);
+            if (!payload.hasFeatures()) {
+                return;
+            }
+            if (applyPayload(projectId, payload.withDelta(false))) {
+                log.debug("Updated features from SSE for project: {}", projectId);
+                notifyListeners(projectId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse SSE data", e);
+        }
+    }
+
+    /**
+     * Applies an event of the multiplexed stream. {@code features} events carry
+     * all features of a project, {@code feature-upserted} and
+     * {@code feature-deleted} events a single change and
+     * {@code features-changed} events several coalesced changes. Events of
+     * environment-scoped streams name their environment, servers that cannot
+     * scope streams send all environments.
+     */
+    void onSseEvent(String eventName, String data) {
+        try {
+            boolean delta;
+            switch (eventName) {
+                case "features" -> delta = false;
+                case "feature-upserted", "feature-deleted", "features-changed" -> delta = true;
+                default -> {
+                    log.debug("Ignoring SSE event of unknown type: {}", eventName);
+                    return;
+                }
+            }
+            CompiledPayload payload = payloadParser.parse(data, null, snapshotCache != null);
+            String projectId = payload.getProjectId();
+            if (projectId == null || !config.getProjects().contains(projectId)) {
+                log.debug("Ignoring SSE event for unknown project: {}", projectId);
+                return;
+            }
+            if (!payload.hasFeatures()) {
+                return;
+            }
+            if (applyPayload(projectId, payload.withDelta(delta))) {
+                log.debug("Updated features from SSE {} event for project: {}", eventName, projectId);
+                notifyListeners(projectId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse SSE data", e);
+        }
     }
 
     public UnchainConfig getConfig() {
@@ -213,67 +441,175 @@ public class UnchainClient {
     }
 
     public void registerEvaluator(StrategyEvaluator evaluator) {
-        evaluators.put(evaluator.getName(), evaluator);
+        engine.registerEvaluator(evaluator);
     }
 
+    /**
+     * Fetches the features of all configured projects, at most
+     * {@link UnchainConfig#getRefreshConcurrency()} at a time, and returns once
+     * every project has been refreshed or failed.
+     */
     public void refresh() {
-        for (String projectId : config.getProjects()) {
-            try {
-                URI url = URI.create(config.getApiUrl().replaceAll("/$", "") + "/projects/" + projectId + "/features");
-                String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
-                log.debug("Fetching features for project: {} from {}", projectId, url);
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                        .uri(url)
-                        .header("Accept", "application/json")
-                        .header("User-Agent", "unchain-java-client/" + VERSION)
-                        .GET();
+        List<String> projects = config.getProjects();
+        if (projects.size() == 1) {
+            refresh(projects.get(0));
+            return;
+        }
 
-                if (token != null) {
-                    requestBuilder.header("Authorization", "Bearer " + token);
+        Semaphore permits = new Semaphore(Math.max(1, config.getRefreshConcurrency()));
+        ThreadFactory threadFactory = Thread.ofVirtual().name("unchain-refresh-", 0).factory();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory)) {
+            for (String projectId : projects) {
+                executor.execute(() -> {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        refresh(projectId);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void refresh(String projectId) {
+        try {
+            String environment = scopedEnvironment();
+            String path = config.getApiUrl().replaceAll("/$", "");
+            List<String> query = new ArrayList<>();
+            if (environment != null) {
+                path += "/client/projects/" + projectId + "/environments/"
+                        + URLEncoder.encode(environment, StandardCharsets.UTF_8).replace("+", "%20") + "/features";
+                if (config.isFetchEnabledOnly()) {
+                    query.add("enabledOnly=true");
                 }
+            } else {
+                path += "/projects/" + projectId + "/features";
+            }
+            Long revision = revisions.get(projectId);
+            if (revision != null && snapshots.containsKey(projectId)) {
+                query.add("sinceRevision=" + revision);
+            }
+            if (!query.isEmpty()) {
+                path += "?" + String.join("&", query);
+            }
+            URI url = URI.create(path);
+            String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
+            log.debug("Fetching features for project: {} from {}", projectId, url);
+            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                    .uri(url)
+                    .header("Accept", "application/json")
+                    .header("User-Agent", "unchain-java-client/" + VERSION)
+                    .GET();
 
-                HttpRequest request = requestBuilder.build();
+            if (token != null) {
+                requestBuilder.header("Authorization", "Bearer " + token);
+            }
+            if (config.isCompressionEnabled()) {
+                requestBuilder.header("Accept-Encoding", "gzip");
+            }
+
+            String etag = etags.get(projectId);
+            if (etag != null && snapshots.containsKey(projectId)) {
+                requestBuilder.header("If-None-Match", etag);
+            }
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpRequest request = requestBuilder.build();
 
-                // Check for dynamic poll interval update
-                response.headers().firstValue("X-Unchain-Poll-Interval").ifPresent(val -> {
-                    try {
-                        int newInterval = Integer.parseInt(val);
-                        if (newInterval > 0 && newInterval != this.currentPollIntervalSeconds) {
-                            log.info("Updating poll interval from {} to {} seconds based on server header",
-                                    this.currentPollIntervalSeconds, newInterval);
-                            this.currentPollIntervalSeconds = newInterval;
-                        }
-                    } catch (NumberFormatException e) {
-                        log.debug("Invalid X-Unchain-Poll-Interval header value: {}", val);
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            // Check for dynamic poll interval update
+            response.headers().firstValue("X-Unchain-Poll-Interval").ifPresent(val -> {
+                try {
+                    int newInterval = Integer.parseInt(val);
+                    if (newInterval > 0 && newInterval != this.currentPollIntervalSeconds) {
+                        log.info("Updating poll interval from {} to {} seconds based on server header",
+                                this.currentPollIntervalSeconds, newInterval);
+                        this.currentPollIntervalSeconds = newInterval;
                     }
-                });
+                } catch (NumberFormatException e) {
+                    log.debug("Invalid X-Unchain-Poll-Interval header value: {}", val);
+                }
+            });
 
-                if (response.statusCode() == 200) {
-                    try {
-                        FeatureResponse fr = objectMapper.readValue(response.body(), FeatureResponse.class);
-                        if (fr.getFeatures() != null) {
-                            for (Feature f : fr.getFeatures()) {
-                                featureCache.put(projectId + ":" + f.getName(), f);
-                            }
-                            log.info("Refreshed {} features for project: {}", fr.getFeatures().size(), projectId);
-                            notifyListeners(projectId);
-                        } else {
-                            log.debug("No features found for project: {}", projectId);
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to deserialize feature response for project {}. Body: {}", projectId,
-                                response.body(), e);
+            if (response.statusCode() == 304) {
+                log.debug("Features for project {} not modified", projectId);
+            } else if (response.statusCode() == 200) {
+                // Parsed and compiled while the body streams in, without buffering it
+                CompiledPayload payload;
+                try (InputStream in = decode(response.headers(), response.body())) {
+                    payload = payloadParser.parse(in, projectId, environment, snapshotCache != null);
+                } catch (IOException e) {
+                    log.error("Failed to deserialize feature response for project {}", projectId, e);
+                    return;
+                }
+                if (payload.hasFeatures()) {
+                    // Before publishing, so the cached payload is stored with its ETag
+                    Optional<String> responseEtag = response.headers().firstValue("ETag");
+                    if (!applyPayload(projectId, payload, () -> responseEtag.ifPresentOrElse(
+                            tag -> etags.put(projectId, tag),
+                            () -> etags.remove(projectId)))) {
+                        log.debug("Discarded features of project {} older than the applied ones", projectId);
+                    } else if (!payload.isDelta()) {
+                        log.info("Refreshed {} features for project: {}", payload.getFeatureCount(), projectId);
+                        notifyListeners(projectId);
+                    } else if (payload.getFeatureCount() > 0 || !payload.getDeleted().isEmpty()) {
+                        log.info("Applied {} changed and {} deleted features for project: {}",
+                                payload.getFeatureCount(), payload.getDeleted().size(), projectId);
+                        notifyListeners(projectId);
+                    } else {
+                        log.debug("No feature changes for project: {}", projectId);
                     }
                 } else {
-                    log.error("Failed to fetch features for project {}: Status code {}", projectId,
-                            response.statusCode());
+                    log.debug("No features found for project: {}", projectId);
                 }
-            } catch (Exception e) {
-                log.error("Unexpected error during feature refresh for project {}", projectId, e);
+            } else {
+                response.body().close();
+                log.error("Failed to fetch features for project {}: Status code {}", projectId,
+                        response.statusCode());
             }
+        } catch (Exception e) {
+            log.error("Unexpected error during feature refresh for project {}", projectId, e);
+        }
+    }
+
+    // Environment that fetches are scoped to, or null to fetch all environments
+    private String scopedEnvironment() {
+        return config.isEnvironmentScoped() ? config.getEnvironment() : null;
+    }
+
+    // What fetches return, so cached payloads of other fetch options are not reused
+    private String snapshotView() {
+        String environment = scopedEnvironment();
+        if (environment == null) {
+            return "all-environments";
         }
+        return "environment:" + environment + (config.isFetchEnabledOnly() ? ":enabled" : "");
+    }
+
+    /**
+     * Returns the body of a response, decompressed if the server gzipped it.
+     */
+    static InputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        boolean gzipped = headers.firstValue("Content-Encoding")
+                .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzipped) {
+            return body;
+        }
+        // GZIPInputStream always reports input as available, which would make
+        // readers block for more data than a single SSE event
+        return new FilterInputStream(new GZIPInputStream(body)) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
     }
 
     public boolean isEnabled(String featureName, UnchainContext context) {
@@ -284,53 +620,223 @@ public class UnchainClient {
     }
 
     public boolean isEnabled(String projectId, String featureName, String environment, UnchainContext context) {
-        Feature feature = featureCache.get(projectId + ":" + featureName);
+        return evaluate(projectId, featureName, environment, context).isEnabled();
+    }
+
+    public EvaluationResult evaluate(String featureName, UnchainContext context) {
+        if (config.getProjects().size() > 1) {
+            throw new IllegalStateException("Multiple projects configured, please specify project ID");
+        }
+        return evaluate(config.getProjects().get(0), featureName, config.getEnvironment(), context);
+    }
+
+    /**
+     * Evaluates a flag once and returns both its enabled state and variant. Use
+     * this instead of calling {@link #isEnabled} and {@link #getVariant} for the
+     * same flag, which would evaluate its strategies and record its usage
+     * twice.
+     */
+    public EvaluationResult evaluate(String projectId, String featureName, String environment,
+            UnchainContext context) {
+        checkEnvironment(environment);
+        CompiledFeature feature = getCompiledFeature(projectId, featureName);
         if (feature == null) {
             log.trace("Feature not found in cache: {}:{}", projectId, featureName);
-            return false;
+            return EvaluationResult.FLAG_NOT_FOUND;
+        }
+        return evaluate(projectId, environment, feature, feature.getEnvironment(environment), context);
+    }
+
+    EvaluationResult evaluate(String projectId, String environment, CompiledFeature feature, CompiledEnvironment env,
+            UnchainContext context) {
+        if (log.isTraceEnabled()) {
+            log.trace("Evaluating feature: {}:{}:{} for context: {}", projectId, feature.getName(), environment,
+                    context);
         }
 
+        EvaluationResult result = engine.evaluate(feature, env, context);
         if (feature.isImpressionData()) {
-            recordMetric(projectId, featureName, environment);
+            recordMetric(projectId, feature.getName(), environment, env, result);
+        }
+        return result;
+    }
+
+    public FlagHandle flag(String featureName) {
+        if (config.getProjects().size() > 1) {
+            throw new IllegalStateException("Multiple projects configured, please specify project ID");
         }
+        return flag(config.getProjects().get(0), featureName, config.getEnvironment());
+    }
 
-        log.trace("Evaluating feature: {}:{}:{} for context: {}", projectId, featureName, environment, context);
+    /**
+     * Returns the handle of a flag, creating it on first use. Handles are shared
+     * per project, feature and environment and stay bound to the latest
+     * snapshot across refreshes and SSE updates.
+     */
+    public FlagHandle flag(String projectId, String featureName, String environment) {
+        checkEnvironment(environment);
+        String key = projectId + "|" + featureName + "|" + environment;
+        FlagHandle handle = handles.computeIfAbsent(key,
+                k -> new FlagHandle(this, projectId, featureName, environment));
+        synchronized (publishLock) {
+            handle.bind(snapshots.get(projectId));
+        }
+        return handle;
+    }
 
-        Optional<FeatureEnvironment> envOpt = feature.getEnvironments().stream()
-                .filter(e -> e.getName().equals(environment))
-                .findFirst();
+    void applyFeatures(String projectId, FeatureResponse fr) {
+        applyPayload(projectId, payloadParser.compile(projectId, fr, snapshotCache != null));
+    }
 
-        if (envOpt.isEmpty() || !envOpt.get().isEnabled()) {
-            log.trace("Feature {}:{} is disabled in environment: {}", projectId, featureName, environment);
-            return false;
+    private boolean applyPayload(String projectId, CompiledPayload payload) {
+        return applyPayload(projectId, payload, () -> {
+        });
+    }
+
+    /**
+     * Publishes a fetched payload. Delta payloads are applied on top of the
+     * current snapshot, all others replace it. The payload is compiled already,
+     * only the swap is serialized.
+     * <p>
+     * Payloads older than the applied revision are discarded, e.g. a poll
+     * response that arrives after a newer SSE event, so a project never moves
+     * back to an older state.
+     *
+     * @param beforePublish run under the publish lock if the payload is applied
+     * @return whether the payload was applied
+     */
+    private boolean applyPayload(String projectId, CompiledPayload payload, Runnable beforePublish) {
+        synchronized (publishLock) {
+            Long applied = revisions.get(projectId);
+            if (applied != null && payload.getRevision() != null && payload.getRevision() < applied) {
+                return false;
+            }
+            beforePublish.run();
+            ProjectSnapshot snapshot = payload.isDelta()
+                    ? payload.applyTo(snapshots.getOrDefault(projectId, ProjectSnapshot.empty(projectId)))
+                    : payload.toSnapshot();
+            publish(projectId, snapshot);
+            updateRevision(projectId, payload.getRevision());
+            cache(projectId, payload);
+        }
+        if (!payload.isDelta()) {
+            markReady(projectId);
         }
+        writeCache(projectId);
+        return true;
+    }
 
-        FeatureEnvironment env = envOpt.get();
-        if (env.getStrategies() == null || env.getStrategies().isEmpty()) {
-            // If enabled but no strategies, we treat it as always ON
-            return true;
+    // Called while publishing, so the cache sees payloads in publication order
+    private void cache(String projectId, CompiledPayload payload) {
+        if (snapshotCache != null) {
+            snapshotCache.update(projectId, payload.toFeatureResponse(), revisions.get(projectId),
+                    etags.get(projectId));
+        }
+    }
+
+    private void writeCache(String projectId) {
+        if (snapshotCache != null) {
+            snapshotCache.write(projectId);
         }
+    }
+
+    private void updateRevision(String projectId, Long revision) {
+        if (revision != null) {
+            revisions.put(projectId, revision);
+        } else {
+            // Server does not support deltas
+            revisions.remove(projectId);
+        }
+    }
 
-        for (Strategy strategy : env.getStrategies()) {
-            // Check constraints first
-            if (!ch.redmoon.unchain.client.strategy.ConstraintEvaluator.evaluate(strategy.getConstraints(), context)) {
-                log.trace("Strategy {} excluded due to constraints", strategy.getName());
-                continue;
+    private void publish(String projectId, ProjectSnapshot snapshot) {
+        synchronized (publishLock) {
+            Map<String, ProjectSnapshot> updated = new HashMap<>(snapshots);
+            updated.put(projectId, snapshot);
+            snapshots = Map.copyOf(updated);
+            rebindHandles(projectId, snapshot);
+        }
+    }
+
+    private void rebindHandles(String projectId, ProjectSnapshot snapshot) {
+        for (FlagHandle handle : handles.values()) {
+            if (handle.getProjectId().equals(projectId)) {
+                handle.bind(snapshot);
             }
+        }
+    }
 
-            StrategyEvaluator evaluator = evaluators.get(strategy.getName());
-            if (evaluator != null) {
-                boolean enabled = evaluator.isEnabled(getParametersMap(strategy), context);
-                log.trace("Strategy {} evaluated to: {}", strategy.getName(), enabled);
-                if (enabled) {
-                    return true;
-                }
-            } else {
-                log.warn("No evaluator found for strategy: {}", strategy.getName());
+    public FlagSnapshot snapshot() {
+        if (config.getProjects().size() > 1) {
+            throw new IllegalStateException("Multiple projects configured, please specify project ID");
+        }
+        return snapshot(config.getProjects().get(0), config.getEnvironment());
+    }
+
+    /**
+     * Pins the current snapshot of a project. All flags evaluated through the
+     * returned {@link FlagSnapshot} see the same state, even if a refresh or SSE
+     * update is published in between, e.g. for the duration of one request.
+     */
+    public FlagSnapshot snapshot(String projectId, String environment) {
+        checkEnvironment(environment);
+        ProjectSnapshot snapshot = snapshots.get(projectId);
+        return new FlagSnapshot(this, snapshot != null ? snapshot : ProjectSnapshot.empty(projectId), environment);
+    }
+
+    public Map<String, EvaluationResult> evaluateAll(UnchainContext context) {
+        if (config.getProjects().size() > 1) {
+            throw new IllegalStateException("Multiple projects configured, please specify project ID");
+        }
+        return evaluateAll(config.getProjects().get(0), config.getEnvironment(), context);
+    }
+
+    /**
+     * Evaluates every feature of the project for one context in a single pass
+     * over the snapshot. This saves the per-call project and feature lookups;
+     * each flag itself is evaluated exactly like by {@link #evaluate}, as
+     * rollout and variant hashes depend on the flag and cannot be shared
+     * between flags.
+     *
+     * @return unmodifiable map of feature name to its evaluation result, empty if
+     *         the project has not been fetched yet
+     */
+    public Map<String, EvaluationResult> evaluateAll(String projectId, String environment, UnchainContext context) {
+        checkEnvironment(environment);
+        ProjectSnapshot snapshot = snapshots.get(projectId);
+        if (snapshot == null) {
+            log.trace("No features cached for project: {}", projectId);
+            return Map.of();
+        }
+        return evaluateAll(snapshot, environment, context);
+    }
+
+    Map<String, EvaluationResult> evaluateAll(ProjectSnapshot snapshot, String environment, UnchainContext context) {
+        String projectId = snapshot.getProjectId();
+        Map<String, EvaluationResult> results = new HashMap<>((int) (snapshot.size() / 0.75f) + 1);
+        for (CompiledFeature feature : snapshot.getFeatures()) {
+            CompiledEnvironment env = feature.getEnvironment(environment);
+            EvaluationResult result = engine.evaluate(feature, env, context);
+            if (feature.isImpressionData()) {
+                recordMetric(projectId, feature.getName(), environment, env, result);
             }
+            results.put(feature.getName(), result);
         }
+        return Collections.unmodifiableMap(results);
+    }
 
-        return false;
+    // Environment-scoped clients only have the features of the configured
+    // environment, any other would evaluate as disabled
+    private void checkEnvironment(String environment) {
+        if (config.isEnvironmentScoped() && !Objects.equals(config.getEnvironment(), environment)) {
+            throw new IllegalArgumentException("Only environment '" + config.getEnvironment()
+                    + "' is fetched, cannot evaluate '" + environment + "'; disable environmentScoped to evaluate others");
+        }
+    }
+
+    private CompiledFeature getCompiledFeature(String projectId, String featureName) {
+        ProjectSnapshot snapshot = snapshots.get(projectId);
+        return snapshot != null ? snapshot.getFeature(featureName) : null;
     }
 
     // For testing purposes
@@ -338,8 +844,16 @@ public class UnchainClient {
         addFeature(config.getProjects().get(0), feature);
     }
 
+    void loadFeatures(String projectId, List<Feature> features) {
+        publish(projectId, snapshotCompiler.compile(projectId, features));
+    }
+
     void addFeature(String projectId, Feature feature) {
-        featureCache.put(projectId + ":" + feature.getName(), feature);
+        CompiledFeature compiled = snapshotCompiler.compile(projectId, feature);
+        synchronized (publishLock) {
+            ProjectSnapshot snapshot = snapshots.getOrDefault(projectId, ProjectSnapshot.empty(projectId));
+            publish(projectId, snapshot.withFeature(compiled));
+        }
     }
 
     public void shutdown() {
@@ -354,6 +868,8 @@ public class UnchainClient {
                 Thread.currentThread().interrupt();
             }
         }
+        // Report what was recorded since the last flush, or spool it
+        metricsShipper.flush();
     }
 
     public Variant getVariant(String featureName, UnchainContext context) {
@@ -361,182 +877,70 @@ public class UnchainClient {
     }
 
     public Variant getVariant(String projectId, String featureName, String environment, UnchainContext context) {
-        Feature feature = featureCache.get(projectId + ":" + featureName);
-        if (feature == null) {
-            return null;
-        }
-
-        // We don't record metric here if it was already recorded in isEnabled,
-        // but since we don't know if isEnabled was called, we should ideally
-        // have an atomic way. For now, we keep it as is but ensure it's recorded
-        // only if feature exists.
-        if (feature.isImpressionData()) {
-            recordMetric(projectId, featureName, environment);
-        }
-
-        Optional<FeatureEnvironment> envOpt = feature.getEnvironments().stream()
-                .filter(e -> e.getName().equals(environment))
-                .findFirst();
-
-        if (envOpt.isEmpty() || !envOpt.get().isEnabled()) {
-            return null;
-        }
-
-        FeatureEnvironment env = envOpt.get();
-        Strategy matchingStrategy = null;
-
-        if (env.getStrategies() != null && !env.getStrategies().isEmpty()) {
-            for (Strategy strategy : env.getStrategies()) {
-                if (!ch.redmoon.unchain.client.strategy.ConstraintEvaluator.evaluate(strategy.getConstraints(),
-                        context)) {
-                    continue; // Skip strategies where constraints don't match
-                }
-
-                StrategyEvaluator evaluator = evaluators.get(strategy.getName());
-                if (evaluator != null && evaluator.isEnabled(getParametersMap(strategy), context)) {
-                    matchingStrategy = strategy;
-                    break;
-                }
-            }
-            if (matchingStrategy == null) {
-                return null;
-            }
-        }
-
-        List<Variant> variants = null;
-        if (matchingStrategy != null && matchingStrategy.getVariants() != null
-                && !matchingStrategy.getVariants().isEmpty()) {
-            variants = matchingStrategy.getVariants();
-        } else if (feature.getVariants() != null && !feature.getVariants().isEmpty()) {
-            variants = feature.getVariants();
-        }
-
-        if (variants == null || variants.isEmpty()) {
-            return null;
-        }
+        return evaluate(projectId, featureName, environment, context).getVariant();
+    }
 
-        // Basic weighted selection logic
-        int totalWeight = variants.stream().mapToInt(Variant::getWeight).sum();
-        if (totalWeight == 0) {
-            log.warn("Total variant weight is 0 for feature: {}", featureName);
-            return null;
+    private void recordMetric(String projectId, String featureName, String environment, CompiledEnvironment env,
+            EvaluationResult result) {
+        if (log.isTraceEnabled()) {
+            log.trace("Recording metric for feature: {}:{}:{}", projectId, featureName, environment);
         }
-
-        // Stickiness logic (simplified)
-        String stickyValue = context.getUserId(); // Default stickiness
-
-        // Use stickiness from the first variant as a proxy for the strategy's
-        // stickiness configuration
-        if (variants.get(0).getStickiness() != null && !variants.get(0).getStickiness().isEmpty()
-                && !"default".equals(variants.get(0).getStickiness())) {
-            stickyValue = context.getProperty(variants.get(0).getStickiness());
+        // Counters of compiled environments are resolved once per snapshot
+        FlagMetrics metrics = env != null ? env.getMetrics() : null;
+        if (metrics == null) {
+            metrics = metricsRegistry.metricsFor(projectId, featureName, environment);
         }
-
-        if (stickyValue == null)
-            stickyValue = "anonymous";
-
-        String data = featureName + ":" + stickyValue;
-        long hash = com.sangupta.murmur.Murmur3.hash_x86_32(data.getBytes(java.nio.charset.StandardCharsets.UTF_8),
-                data.length(), 0);
-        int normalized = (int) (hash % totalWeight);
-
-        log.trace("Variant selection for {}: hash={}, stickyValue={}", featureName, normalized, stickyValue);
-        int currentWeight = 0;
-        for (Variant variant : variants) {
-            currentWeight += variant.getWeight();
-            if (normalized < currentWeight) {
-                log.trace("Selected variant: {} for feature: {}", variant.getName(), featureName);
-                return variant;
-            }
-        }
-
-        return null;
+        metrics.record(result);
     }
 
-    private Map<String, String> getParametersMap(Strategy strategy) {
-        if (strategy.getParameters() == null) {
-            return Collections.emptyMap();
+    private void flushMetrics() {
+        try {
+            metricsShipper.flush();
+        } catch (Exception e) {
+            log.error("Error sending metrics", e);
         }
-        return strategy.getParameters().stream()
-                .collect(Collectors.toMap(
-                        StrategyParameter::getName,
-                        p -> p.getValue() != null ? p.getValue() : "",
-                        (v1, v2) -> v1 // Keep first on duplicates
-                ));
+        pruneMetrics();
     }
 
-    private void recordMetric(String projectId, String featureName, String environment) {
-        log.trace("Recording metric for feature: {}:{}:{}", projectId, featureName, environment);
-        String key = String.format("%s|%s|%s", projectId, featureName, environment);
-        metricsMap.computeIfAbsent(key, k -> new AtomicInteger(0)).incrementAndGet();
+    /**
+     * Drops the reported counters of features that no longer exist, so the
+     * registry stays bounded by the current flag set.
+     */
+    private void pruneMetrics() {
+        Map<String, ProjectSnapshot> current = snapshots;
+        metricsRegistry.removeIdle(metrics -> {
+            ProjectSnapshot snapshot = current.get(metrics.getProjectId());
+            return snapshot != null && snapshot.getFeature(metrics.getFeatureName()) == null;
+        });
     }
 
-    private void sendMetrics() {
-        if (metricsMap.isEmpty()) {
-            log.trace("No metrics to send");
-            return;
+    private void flushMetricsIfFull() {
+        if (metricsShipper.getPendingBuckets() >= config.getMetricsMaxPendingBuckets()) {
+            log.debug("Metric buckets reached {}, flushing early", config.getMetricsMaxPendingBuckets());
+            flushMetrics();
         }
+    }
 
-        try {
-            List<FeatureMetric> metricsList = new ArrayList<>();
-            metricsMap.forEach((key, counter) -> {
-                int count = counter.getAndSet(0);
-                if (count > 0) {
-                    String[] parts = key.split("\\|");
-                    if (parts.length == 3) {
-                        metricsList.add(FeatureMetric.builder()
-                                .projectId(parts[0])
-                                .featureName(parts[1])
-                                .environment(parts[2])
-                                .count(count)
-                                .timestamp(OffsetDateTime.now())
-                                .build());
-                    }
-                }
-            });
-
-            if (metricsList.isEmpty()) {
-                return;
-            }
-
-            MetricsReportRequest reportRequest = MetricsReportRequest.builder()
-                    .metrics(metricsList)
-                    .build();
-
-            String url = config.getApiUrl() + "/metrics";
-            String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
-
-            log.debug("Reporting {} metric buckets to {}", metricsList.size(), url);
+    private int postMetrics(byte[] body, boolean gzipped) throws IOException, InterruptedException {
+        String url = config.getApiUrl() + "/metrics";
+        String token = config.getTokenSupplier() != null ? config.getTokenSupplier().get() : null;
 
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Accept", "application/json")
-                    .header("Content-Type", "application/json")
-                    .header("User-Agent", "unchain-java-client/" + VERSION)
-                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(reportRequest)));
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .header("User-Agent", "unchain-java-client/" + VERSION)
+                .timeout(Duration.ofSeconds(config.getMetricsTimeoutSeconds()))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
 
-            if (token != null) {
-                requestBuilder.header("Authorization", "Bearer " + token);
-            }
-
-            HttpRequest request = requestBuilder.build();
-            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-
-            if (response.statusCode() == 202) {
-                log.info("Successfully reported {} metric buckets", metricsList.size());
-            } else {
-                log.error("Failed to report metrics: Status code {}", response.statusCode());
-                // Optional: restore metrics on failure? Complex due to concurrent updates.
-                // For now, we accept loss on failure as the counts were already reset to 0.
-                // Restore counts on failure
-                metricsList.forEach(m -> {
-                    String key = m.getProjectId() + "|" + m.getFeatureName() + "|" + m.getEnvironment();
-                    metricsMap.computeIfAbsent(key, k -> new AtomicInteger(0)).addAndGet(m.getCount());
-                });
-            }
-        } catch (Exception e) {
-            log.error("Error sending metrics", e);
+        if (gzipped) {
+            requestBuilder.header("Content-Encoding", "gzip");
         }
+        if (token != null) {
+            requestBuilder.header("Authorization", "Bearer " + token);
+        }
+
+        return httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
     }
 
     public Runnable addChangeListener(java.util.function.Consumer<String> listener) {
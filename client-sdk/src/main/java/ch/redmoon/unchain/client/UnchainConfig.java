@@ -2,6 +2,7 @@ package ch.redmoon.unchain.client;
 
 import lombok.Builder;
 import lombok.Getter;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -14,10 +15,60 @@ public class UnchainConfig {
     private final List<String> projects;
     @Builder.Default
     private final long refreshIntervalSeconds = 120;
+    /** Maximum number of projects fetched concurrently on refresh. */
+    @Builder.Default
+    private int refreshConcurrency = 8;
+    /** Block in the constructor until the features are loaded, see {@link UnchainClient#awaitReady}. */
     @Builder.Default
     private boolean waitforInit = false;
+    /** Maximum time to wait for the features on init. */
     @Builder.Default
     private long initWaitTimeSeconds = 5;
     @Builder.Default
     private boolean sseEnabled = false;
+    /** Interval in which usage metrics are reported. */
+    @Builder.Default
+    private long metricsFlushIntervalSeconds = 600;
+    /** Report metrics early once this many features have unreported usage. */
+    @Builder.Default
+    private int metricsMaxPendingBuckets = 1000;
+    /** Gzip metrics reports. */
+    @Builder.Default
+    private boolean metricsCompressionEnabled = true;
+    /** Metrics reports smaller than this are sent uncompressed. */
+    @Builder.Default
+    private int metricsCompressionMinBytes = 1024;
+    /**
+     * Maximum time to wait for the server to accept a metrics report, which
+     * also bounds how long {@link UnchainClient#shutdown} waits for the last one.
+     */
+    @Builder.Default
+    private long metricsTimeoutSeconds = 10;
+    /** Accept gzipped feature payloads and SSE streams. */
+    @Builder.Default
+    private boolean compressionEnabled = true;
+    /**
+     * Fetch and stream only the features of the configured environment, in the
+     * slim evaluation-only format. Evaluating any other environment then throws
+     * an {@link IllegalArgumentException}.
+     */
+    @Builder.Default
+    private boolean environmentScoped = true;
+    /** Leave out features that are disabled, with environment-scoped fetches only. */
+    @Builder.Default
+    private boolean fetchEnabledOnly = false;
+    /**
+     * File that metrics reports which could not be sent are kept in until the
+     * server is reachable again, also across restarts. Unsent counts are only
+     * kept in memory if not set.
+     */
+    private final Path metricsSpoolFile;
+    @Builder.Default
+    private long metricsSpoolMaxBytes = 1024 * 1024;
+    /**
+     * Directory that the last fetched features of each project are cached in.
+     * They are loaded on startup, so flags evaluate correctly before the first
+     * fetch and while the server is unreachable. Nothing is cached if not set.
+     */
+    private final Path snapshotCacheDir;
 }
@@ -0,0 +1,128 @@
+package ch.redmoon.unchain.client.metrics;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.model.Variant;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage counters of one feature in one environment, split by outcome and by
+ * variant. Counters are striped {@link LongAdder}s, so threads evaluating the
+ * same hot flag do not contend on a single cache line.
+ */
+public final class FlagMetrics {
+    private final String projectId;
+    private final String featureName;
+    private final String environment;
+    private final LongAdder yes = new LongAdder();
+    private final LongAdder no = new LongAdder();
+    private final Map<String, LongAdder> variants = new ConcurrentHashMap<>();
+
+    FlagMetrics(String projectId, String featureName, String environment) {
+        this.projectId = projectId;
+        this.featureName = featureName;
+        this.environment = environment;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getFeatureName() {
+        return featureName;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public void record(EvaluationResult result) {
+        (result.isEnabled() ? yes : no).increment();
+        Variant variant = result.getVariant();
+        if (variant != null && variant.getName() != null) {
+            variantCounter(variant.getName()).increment();
+        }
+    }
+
+    private LongAdder variantCounter(String name) {
+        LongAdder counter = variants.get(name);
+        return counter != null ? counter : variants.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public boolean hasPendingCounts() {
+        if (yes.sum() > 0 || no.sum() > 0) {
+            return true;
+        }
+        for (LongAdder counter : variants.values()) {
+            if (counter.sum() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the counts recorded since the last drain and resets them. Counts
+     * recorded concurrently end up in either this or the next drain.
+     */
+    public Counts drain() {
+        long drainedYes = yes.sumThenReset();
+        long drainedNo = no.sumThenReset();
+        Map<String, Long> drainedVariants = Collections.emptyMap();
+        for (Map.Entry<String, LongAdder> entry : variants.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                if (drainedVariants.isEmpty()) {
+                    drainedVariants = new HashMap<>();
+                }
+                drainedVariants.put(entry.getKey(), count);
+            }
+        }
+        return new Counts(drainedYes, drainedNo, drainedVariants);
+    }
+
+    /**
+     * Adds previously drained counts back, e.g. after a failed report.
+     */
+    public void restore(Counts counts) {
+        yes.add(counts.getYes());
+        no.add(counts.getNo());
+        counts.getVariants().forEach((name, count) -> variantCounter(name).add(count));
+    }
+
+    public static final class Counts {
+        private final long yes;
+        private final long no;
+        private final Map<String, Long> variants;
+
+        Counts(long yes, long no, Map<String, Long> variants) {
+            this.yes = yes;
+            this.no = no;
+            this.variants = variants;
+        }
+
+        public long getYes() {
+            return yes;
+        }
+
+        public long getNo() {
+            return no;
+        }
+
+        public long getTotal() {
+            return yes + no;
+        }
+
+        public Map<String, Long> getVariants() {
+            return variants;
+        }
+
+        public boolean isEmpty() {
+            return yes == 0 && no == 0 && variants.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ch.redmoon.unchain.client.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Holds the {@link FlagMetrics} of every feature and environment a client has
+ * recorded usage for. Compiled snapshots resolve their counters here once, so
+ * counts survive snapshot replacement and evaluations never touch the
+ * registry.
+ */
+public class MetricsRegistry {
+    private final Map<Key, FlagMetrics> metrics = new ConcurrentHashMap<>();
+
+    public FlagMetrics metricsFor(String projectId, String featureName, String environment) {
+        return metrics.computeIfAbsent(new Key(projectId, featureName, environment),
+                k -> new FlagMetrics(projectId, featureName, environment));
+    }
+
+    public Collection<FlagMetrics> getAll() {
+        return metrics.values();
+    }
+
+    /**
+     * Removes the counters matching the filter that have no pending counts.
+     * Usage recorded concurrently through a removed counter is lost, so only
+     * counters that are no longer evaluated should be removed.
+     */
+    public void removeIdle(Predicate<FlagMetrics> filter) {
+        metrics.values().removeIf(m -> filter.test(m) && !m.hasPendingCounts());
+    }
+
+    public boolean isEmpty() {
+        return metrics.isEmpty();
+    }
+
+    private record Key(String projectId, String featureName, String environment) {
+    }
+}
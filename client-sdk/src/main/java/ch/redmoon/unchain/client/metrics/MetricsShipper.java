@@ -0,0 +1,253 @@
+package ch.redmoon.unchain.client.metrics;
+
+import ch.redmoon.unchain.client.model.FeatureMetric;
+import ch.redmoon.unchain.client.model.MetricsReportRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ships the counts of a {@link MetricsRegistry} to the server in batches.
+ * <p>
+ * Each flush drains all pending counts into one report, gzips it unless it is
+ * small and posts it.
+ * If the server cannot be reached, the report is appended to an optional,
+ * size-bounded spool file, which is replayed in order before the next report is
+ * sent, including after a restart. Without a spool file, or when it is full,
+ * the counts are added back to the registry and sent with the next flush.
+ */
+public class MetricsShipper {
+    private static final Logger log = LoggerFactory.getLogger(MetricsShipper.class);
+
+    private final MetricsRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final Transport transport;
+    private final boolean compress;
+    private final int compressMinBytes;
+    private final Path spoolFile;
+    private final long spoolMaxBytes;
+
+    /**
+     * @param spoolFile     file that unsent reports are kept in, may be
+     *                      {@code null} to keep them in memory only
+     * @param spoolMaxBytes maximum size of the spool file
+     */
+    public MetricsShipper(MetricsRegistry registry, ObjectMapper objectMapper, Transport transport,
+            boolean compress, Path spoolFile, long spoolMaxBytes) {
+        this(registry, objectMapper, transport, compress, 0, spoolFile, spoolMaxBytes);
+    }
+
+    /**
+     * @param compressMinBytes reports smaller than this are sent uncompressed,
+     *                         as gzip would save little or even add bytes
+     */
+    public MetricsShipper(MetricsRegistry registry, ObjectMapper objectMapper, Transport transport,
+            boolean compress, int compressMinBytes, Path spoolFile, long spoolMaxBytes) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.transport = transport;
+        this.compress = compress;
+        this.compressMinBytes = compressMinBytes;
+        this.spoolFile = spoolFile;
+        this.spoolMaxBytes = spoolMaxBytes;
+    }
+
+    /**
+     * Number of features with counts that have not been flushed yet.
+     */
+    public int getPendingBuckets() {
+        int pending = 0;
+        for (FlagMetrics metrics : registry.getAll()) {
+            if (metrics.hasPendingCounts()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Replays spooled reports and sends the pending counts as a new report.
+     */
+    public synchronized void flush() {
+        boolean reachable = replaySpool();
+
+        Map<FlagMetrics, FlagMetrics.Counts> drained = new HashMap<>();
+        List<FeatureMetric> metricsList = new ArrayList<>();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (FlagMetrics metrics : registry.getAll()) {
+            FlagMetrics.Counts counts = metrics.drain();
+            if (!counts.isEmpty()) {
+                drained.put(metrics, counts);
+                metricsList.add(toFeatureMetric(metrics, counts, now));
+            }
+        }
+        if (metricsList.isEmpty()) {
+            log.trace("No metrics to send");
+            return;
+        }
+
+        byte[] report;
+        try {
+            report = objectMapper.writeValueAsBytes(MetricsReportRequest.builder().metrics(metricsList).build());
+        } catch (IOException e) {
+            log.error("Failed to serialize metrics report", e);
+            drained.forEach(FlagMetrics::restore);
+            return;
+        }
+
+        // Keep the spool in order: while older reports are pending, queue behind them
+        Outcome outcome = reachable ? send(report, metricsList.size()) : Outcome.RETRY;
+        if (outcome == Outcome.RETRY && !spool(report)) {
+            drained.forEach(FlagMetrics::restore);
+        }
+    }
+
+    private boolean replaySpool() {
+        if (spoolFile == null || !Files.exists(spoolFile)) {
+            return true;
+        }
+        try {
+            List<String> reports = Files.readAllLines(spoolFile, StandardCharsets.UTF_8);
+            int sent = 0;
+            while (sent < reports.size()) {
+                String report = reports.get(sent);
+                if (!report.isBlank() && send(report.getBytes(StandardCharsets.UTF_8), -1) == Outcome.RETRY) {
+                    break;
+                }
+                sent++;
+            }
+            if (sent == reports.size()) {
+                Files.deleteIfExists(spoolFile);
+                if (sent > 0) {
+                    log.info("Replayed {} spooled metrics reports", sent);
+                }
+                return true;
+            }
+            if (sent > 0) {
+                rewriteSpool(reports.subList(sent, reports.size()));
+            }
+            return false;
+        } catch (IOException e) {
+            log.error("Failed to replay metrics spool file {}", spoolFile, e);
+            return true;
+        }
+    }
+
+    private boolean spool(byte[] report) {
+        if (spoolFile == null) {
+            return false;
+        }
+        try {
+            long size = Files.exists(spoolFile) ? Files.size(spoolFile) : 0;
+            if (size + report.length + 1 > spoolMaxBytes) {
+                log.warn("Metrics spool file {} is full, keeping counts in memory", spoolFile);
+                return false;
+            }
+            if (spoolFile.getParent() != null) {
+                Files.createDirectories(spoolFile.getParent());
+            }
+            byte[] line = new byte[report.length + 1];
+            System.arraycopy(report, 0, line, 0, report.length);
+            line[report.length] = '\n';
+            Files.write(spoolFile, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.debug("Spooled metrics report to {}", spoolFile);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to spool metrics report to {}", spoolFile, e);
+            return false;
+        }
+    }
+
+    private void rewriteSpool(List<String> reports) throws IOException {
+        Path tmp = spoolFile.resolveSibling(spoolFile.getFileName() + ".tmp");
+        Files.write(tmp, reports, StandardCharsets.UTF_8);
+        Files.move(tmp, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Outcome send(byte[] report, int buckets) {
+        try {
+            boolean gzipped = compress && report.length >= compressMinBytes;
+            byte[] body = gzipped ? gzip(report) : report;
+            log.debug("Reporting metrics ({} bytes, {} on the wire)", report.length, body.length);
+            int status = transport.send(body, gzipped);
+            if (status >= 200 && status < 300) {
+                if (buckets >= 0) {
+                    log.info("Successfully reported {} metric buckets", buckets);
+                }
+                return Outcome.SENT;
+            }
+            if (status == 400 || status == 413 || status == 422) {
+                // Sending the same report again cannot succeed
+                log.error("Metrics report rejected with status code {}, dropping it", status);
+                return Outcome.REJECTED;
+            }
+            log.error("Failed to report metrics: Status code {}", status);
+            return Outcome.RETRY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.RETRY;
+        } catch (Exception e) {
+            log.error("Error sending metrics", e);
+            return Outcome.RETRY;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static FeatureMetric toFeatureMetric(FlagMetrics metrics, FlagMetrics.Counts counts,
+            OffsetDateTime timestamp) {
+        Map<String, Integer> variants = null;
+        if (!counts.getVariants().isEmpty()) {
+            variants = new HashMap<>();
+            for (Map.Entry<String, Long> entry : counts.getVariants().entrySet()) {
+                variants.put(entry.getKey(), saturatedInt(entry.getValue()));
+            }
+        }
+        return FeatureMetric.builder()
+                .projectId(metrics.getProjectId())
+                .featureName(metrics.getFeatureName())
+                .environment(metrics.getEnvironment())
+                .count(saturatedInt(counts.getTotal()))
+                .yes(saturatedInt(counts.getYes()))
+                .no(saturatedInt(counts.getNo()))
+                .variants(variants)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    private enum Outcome {
+        SENT, REJECTED, RETRY
+    }
+
+    /**
+     * Posts a serialized metrics report and returns the HTTP status code.
+     */
+    @FunctionalInterface
+    public interface Transport {
+        int send(byte[] body, boolean gzipped) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,55 @@
+package ch.redmoon.unchain.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A feature as served by the environment-scoped endpoint, holding the state of
+ * a single environment only.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EnvironmentFeature {
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("impressionData")
+    private boolean impressionData;
+
+    @JsonProperty("strategies")
+    @Builder.Default
+    private List<Strategy> strategies = new ArrayList<>();
+
+    @JsonProperty("variants")
+    @Builder.Default
+    private List<Variant> variants = new ArrayList<>();
+
+    /**
+     * Returns this as a feature with just the given environment.
+     */
+    public Feature toFeature(String environment) {
+        FeatureEnvironment env = FeatureEnvironment.builder()
+                .name(environment)
+                .enabled(enabled)
+                .strategies(strategies)
+                .build();
+        return Feature.builder()
+                .name(name)
+                .impressionData(impressionData)
+                .environments(new ArrayList<>(List.of(env)))
+                .variants(variants)
+                .build();
+    }
+}
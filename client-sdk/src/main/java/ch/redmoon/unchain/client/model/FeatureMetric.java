@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -16,5 +17,11 @@ public class FeatureMetric {
     private String featureName;
     private String environment;
     private int count;
+    /** Evaluations that returned enabled, part of {@code count}. */
+    private int yes;
+    /** Evaluations that returned disabled, part of {@code count}. */
+    private int no;
+    /** Evaluations per selected variant name, {@code null} if none selected a variant. */
+    private Map<String, Integer> variants;
     private OffsetDateTime timestamp;
 }
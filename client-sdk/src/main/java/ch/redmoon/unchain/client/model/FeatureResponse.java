@@ -15,7 +15,24 @@ import java.util.List;
 @AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FeatureResponse {
+    // Set on events of multiplexed streams only
+    @JsonProperty("projectId")
+    private String projectId;
+
     @JsonProperty("features")
     @Builder.Default
     private List<Feature> features = new ArrayList<>();
+
+    // Names of deleted features, only set on delta responses
+    @JsonProperty("deleted")
+    @Builder.Default
+    private List<String> deleted = new ArrayList<>();
+
+    @JsonProperty("revision")
+    private Long revision;
+
+    // True if the response only contains the features changed since the
+    // requested revision
+    @JsonProperty("delta")
+    private boolean delta;
 }
@@ -1,5 +1,6 @@
 package ch.redmoon.unchain.client.provider;
 
+import ch.redmoon.unchain.client.EvaluationResult;
 import ch.redmoon.unchain.client.UnchainClient;
 import ch.redmoon.unchain.client.UnchainContext;
 import ch.redmoon.unchain.client.model.Variant;
@@ -7,6 +8,8 @@ import dev.openfeature.sdk.*;
 import dev.openfeature.sdk.exceptions.GeneralError;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Duration;
+
 @RequiredArgsConstructor
 public class UnchainFeatureProvider extends EventProvider implements FeatureProvider {
 
@@ -19,28 +22,49 @@ public class UnchainFeatureProvider extends EventProvider implements FeatureProv
 
     // ... (rest of methods unchanged until initialize)
 
+    /**
+     * Waits for the client's features, so the provider only reports ready once
+     * flags evaluate to their configured values. If they are not loaded within
+     * the configured init wait time, the provider starts in error state and
+     * emits {@link ProviderEvent#PROVIDER_READY} once they are.
+     */
     @Override
     public void initialize(EvaluationContext evaluationContext) throws Exception {
         unchainClient.addChangeListener(projectId -> {
             emit(ProviderEvent.PROVIDER_CONFIGURATION_CHANGED,
                     ProviderEventDetails.builder().message("Features updated for project " + projectId).build());
         });
+
+        long waitSeconds = unchainClient.getConfig().getInitWaitTimeSeconds();
+        if (!unchainClient.awaitReady(Duration.ofSeconds(waitSeconds))) {
+            unchainClient.ready().thenRun(() -> emit(ProviderEvent.PROVIDER_READY,
+                    ProviderEventDetails.builder().message("Features loaded").build()));
+            throw new GeneralError("Features not loaded within " + waitSeconds + " seconds");
+        }
     }
 
     // ... (rest of methods)
 
     @Override
     public ProviderEvaluation<Boolean> getBooleanEvaluation(String key, Boolean defaultValue, EvaluationContext ctx) {
-        boolean value = unchainClient.isEnabled(key, mapContext(ctx));
+        EvaluationResult result = unchainClient.evaluate(key, mapContext(ctx));
+        if (result.getReason() == EvaluationResult.Reason.FLAG_NOT_FOUND) {
+            return notFound(key, defaultValue);
+        }
         return ProviderEvaluation.<Boolean>builder()
-                .value(value)
-                .reason(Reason.TARGETING_MATCH.toString())
+                .value(result.isEnabled())
+                .variant(result.getVariant() != null ? result.getVariant().getName() : null)
+                .reason(mapReason(result))
                 .build();
     }
 
     @Override
     public ProviderEvaluation<String> getStringEvaluation(String key, String defaultValue, EvaluationContext ctx) {
-        Variant variant = unchainClient.getVariant(key, mapContext(ctx));
+        EvaluationResult result = unchainClient.evaluate(key, mapContext(ctx));
+        if (result.getReason() == EvaluationResult.Reason.FLAG_NOT_FOUND) {
+            return notFound(key, defaultValue);
+        }
+        Variant variant = result.getVariant();
         if (variant == null) {
             return ProviderEvaluation.<String>builder()
                     .value(defaultValue)
@@ -65,7 +89,11 @@ public class UnchainFeatureProvider extends EventProvider implements FeatureProv
 
     @Override
     public ProviderEvaluation<Integer> getIntegerEvaluation(String key, Integer defaultValue, EvaluationContext ctx) {
-        Variant variant = unchainClient.getVariant(key, mapContext(ctx));
+        EvaluationResult result = unchainClient.evaluate(key, mapContext(ctx));
+        if (result.getReason() == EvaluationResult.Reason.FLAG_NOT_FOUND) {
+            return notFound(key, defaultValue);
+        }
+        Variant variant = result.getVariant();
         if (variant == null || variant.getPayload() == null) {
             return ProviderEvaluation.<Integer>builder()
                     .value(defaultValue)
@@ -87,7 +115,11 @@ public class UnchainFeatureProvider extends EventProvider implements FeatureProv
 
     @Override
     public ProviderEvaluation<Double> getDoubleEvaluation(String key, Double defaultValue, EvaluationContext ctx) {
-        Variant variant = unchainClient.getVariant(key, mapContext(ctx));
+        EvaluationResult result = unchainClient.evaluate(key, mapContext(ctx));
+        if (result.getReason() == EvaluationResult.Reason.FLAG_NOT_FOUND) {
+            return notFound(key, defaultValue);
+        }
+        Variant variant = result.getVariant();
         if (variant == null || variant.getPayload() == null) {
             return ProviderEvaluation.<Double>builder()
                     .value(defaultValue)
@@ -121,6 +153,29 @@ public class UnchainFeatureProvider extends EventProvider implements FeatureProv
         unchainClient.shutdown();
     }
 
+    // Flags not found are reported as errors, see notFound
+    private static String mapReason(EvaluationResult result) {
+        switch (result.getReason()) {
+            case DISABLED:
+                return Reason.DISABLED.toString();
+            case NO_STRATEGIES:
+                return Reason.STATIC.toString();
+            case NO_MATCHING_STRATEGY:
+                return Reason.DEFAULT.toString();
+            default:
+                return Reason.TARGETING_MATCH.toString();
+        }
+    }
+
+    private static <T> ProviderEvaluation<T> notFound(String key, T defaultValue) {
+        return ProviderEvaluation.<T>builder()
+                .value(defaultValue)
+                .reason(Reason.ERROR.toString())
+                .errorCode(ErrorCode.FLAG_NOT_FOUND)
+                .errorMessage("Flag not found: " + key)
+                .build();
+    }
+
     private UnchainContext mapContext(EvaluationContext ctx) {
         UnchainContext.UnchainContextBuilder builder = UnchainContext.builder()
                 .userId(ctx.getTargetingKey());
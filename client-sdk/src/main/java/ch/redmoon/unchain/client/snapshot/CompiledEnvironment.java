@@ -0,0 +1,55 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.metrics.FlagMetrics;
+
+/**
+ * The evaluation-relevant state of a feature in a single environment.
+ */
+public final class CompiledEnvironment {
+    private final String name;
+    private final boolean enabled;
+    private final CompiledStrategy[] strategies;
+    private final FlagMetrics metrics;
+    private final CompiledResults results;
+
+    CompiledEnvironment(String name, boolean enabled, CompiledStrategy[] strategies,
+            FlagMetrics metrics, CompiledResults results) {
+        this.name = name;
+        this.enabled = enabled;
+        this.strategies = strategies;
+        this.metrics = metrics;
+        this.results = results;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getStrategyCount() {
+        return strategies.length;
+    }
+
+    public CompiledStrategy getStrategy(int index) {
+        return strategies[index];
+    }
+
+    /**
+     * The usage counters of this feature and environment, resolved at compile
+     * time, or {@code null} if the feature does not record impression data.
+     */
+    public FlagMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The results of evaluations when the environment is enabled without any
+     * strategies.
+     */
+    public CompiledResults getResults() {
+        return results;
+    }
+}
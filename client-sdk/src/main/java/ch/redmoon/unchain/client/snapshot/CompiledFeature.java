@@ -0,0 +1,41 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import java.util.Map;
+
+/**
+ * A feature compiled for evaluation, with its environments indexed by name.
+ */
+public final class CompiledFeature {
+    private final String name;
+    private final boolean impressionData;
+    private final Map<String, CompiledEnvironment> environments;
+    private final CompiledVariants variants;
+
+    CompiledFeature(String name, boolean impressionData, Map<String, CompiledEnvironment> environments,
+            CompiledVariants variants) {
+        this.name = name;
+        this.impressionData = impressionData;
+        this.environments = environments;
+        this.variants = variants;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isImpressionData() {
+        return impressionData;
+    }
+
+    /**
+     * Returns the feature's state in the given environment, or {@code null} if
+     * the feature is not configured there.
+     */
+    public CompiledEnvironment getEnvironment(String environment) {
+        return environments.get(environment);
+    }
+
+    public CompiledVariants getVariants() {
+        return variants;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureResponse;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fetched feature payload with its features already compiled, ready to be
+ * published as or applied to a {@link ProjectSnapshot}.
+ */
+public final class CompiledPayload {
+    private final String projectId;
+    private final Map<String, CompiledFeature> features;
+    private final List<String> deleted;
+    private final Long revision;
+    private final boolean delta;
+    private final boolean hasFeatures;
+    private final List<Feature> sources;
+
+    CompiledPayload(String projectId, Map<String, CompiledFeature> features, List<String> deleted, Long revision,
+            boolean delta, boolean hasFeatures, List<Feature> sources) {
+        this.projectId = projectId;
+        this.features = features;
+        this.deleted = deleted;
+        this.revision = revision;
+        this.delta = delta;
+        this.hasFeatures = hasFeatures;
+        this.sources = sources;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public int getFeatureCount() {
+        return features.size();
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    /**
+     * True if the payload only holds the features changed since a revision.
+     */
+    public boolean isDelta() {
+        return delta;
+    }
+
+    /**
+     * False if the payload had no features list at all, as opposed to an empty
+     * one.
+     */
+    public boolean hasFeatures() {
+        return hasFeatures;
+    }
+
+    /**
+     * Returns a copy of this payload that is or is not a delta, e.g. as told by
+     * the type of the SSE event it arrived in.
+     */
+    public CompiledPayload withDelta(boolean delta) {
+        return new CompiledPayload(projectId, features, deleted, revision, delta, hasFeatures, sources);
+    }
+
+    /**
+     * Builds the snapshot of a full payload.
+     */
+    public ProjectSnapshot toSnapshot() {
+        return new ProjectSnapshot(projectId, features);
+    }
+
+    /**
+     * Applies a delta payload on top of the given snapshot.
+     */
+    public ProjectSnapshot applyTo(ProjectSnapshot snapshot) {
+        return snapshot.withChanges(features.values(), deleted);
+    }
+
+    /**
+     * Returns the uncompiled payload, or {@code null} unless it was kept when
+     * parsing.
+     */
+    public FeatureResponse toFeatureResponse() {
+        if (sources == null) {
+            return null;
+        }
+        return FeatureResponse.builder()
+                .projectId(projectId)
+                .features(sources)
+                .deleted(deleted)
+                .revision(revision)
+                .delta(delta)
+                .build();
+    }
+}
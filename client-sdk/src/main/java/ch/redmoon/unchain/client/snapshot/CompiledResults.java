@@ -0,0 +1,46 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+
+/**
+ * The enabled results a strategy match (or an environment without strategies)
+ * can produce: one per variant and one without a variant. They are built once
+ * per snapshot so evaluations return shared instances.
+ */
+public final class CompiledResults {
+    private final CompiledVariants variants;
+    private final EvaluationResult withoutVariant;
+    private final EvaluationResult[] withVariant;
+
+    private CompiledResults(CompiledVariants variants, EvaluationResult withoutVariant,
+            EvaluationResult[] withVariant) {
+        this.variants = variants;
+        this.withoutVariant = withoutVariant;
+        this.withVariant = withVariant;
+    }
+
+    static CompiledResults of(String strategyName, EvaluationResult.Reason reason, CompiledVariants variants) {
+        EvaluationResult[] withVariant = new EvaluationResult[variants.size()];
+        for (int i = 0; i < withVariant.length; i++) {
+            withVariant[i] = new EvaluationResult(true, variants.get(i), strategyName, reason);
+        }
+        return new CompiledResults(variants, new EvaluationResult(true, null, strategyName, reason), withVariant);
+    }
+
+    /**
+     * The variants to select from: the strategy's own variants if it defines
+     * any, otherwise the feature's.
+     */
+    public CompiledVariants getVariants() {
+        return variants;
+    }
+
+    /**
+     * Returns the result for the variant at the given index of
+     * {@link #getVariants()}, or the result without a variant for a negative
+     * index.
+     */
+    public EvaluationResult get(int variantIndex) {
+        return variantIndex < 0 ? withoutVariant : withVariant[variantIndex];
+    }
+}
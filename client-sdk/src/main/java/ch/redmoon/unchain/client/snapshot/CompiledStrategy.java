@@ -0,0 +1,60 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.strategy.CompiledConstraints;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+
+import java.util.Map;
+
+/**
+ * A strategy with its parameter map built once, its constraints compiled and
+ * its evaluator resolved at compile time.
+ */
+public final class CompiledStrategy {
+    private final String name;
+    private final StrategyEvaluator evaluator;
+    private final Map<String, String> parameters;
+    private final CompiledConstraints constraints;
+    private final CompiledVariants variants;
+    private final CompiledResults results;
+
+    CompiledStrategy(String name, StrategyEvaluator evaluator, Map<String, String> parameters,
+            CompiledConstraints constraints, CompiledVariants variants, CompiledResults results) {
+        this.name = name;
+        this.evaluator = evaluator;
+        this.parameters = parameters;
+        this.constraints = constraints;
+        this.variants = variants;
+        this.results = results;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The evaluator registered for this strategy when the snapshot was compiled,
+     * or {@code null} if none was registered at that time.
+     */
+    public StrategyEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public CompiledConstraints getConstraints() {
+        return constraints;
+    }
+
+    public CompiledVariants getVariants() {
+        return variants;
+    }
+
+    /**
+     * The results of evaluations in which this strategy matched.
+     */
+    public CompiledResults getResults() {
+        return results;
+    }
+}
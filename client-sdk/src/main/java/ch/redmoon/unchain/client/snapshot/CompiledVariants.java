@@ -0,0 +1,92 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.Variant;
+
+import java.util.List;
+
+/**
+ * Variants of a feature or strategy with their cumulative weights precomputed,
+ * so selecting a variant is a scan over an int array.
+ */
+public final class CompiledVariants {
+    static final CompiledVariants NONE = new CompiledVariants(new Variant[0], new int[0], 0, null);
+
+    private final Variant[] variants;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    private final String stickiness;
+
+    private CompiledVariants(Variant[] variants, int[] cumulativeWeights, int totalWeight, String stickiness) {
+        this.variants = variants;
+        this.cumulativeWeights = cumulativeWeights;
+        this.totalWeight = totalWeight;
+        this.stickiness = stickiness;
+    }
+
+    static CompiledVariants of(List<Variant> variants) {
+        if (variants == null || variants.isEmpty()) {
+            return NONE;
+        }
+        Variant[] array = variants.toArray(new Variant[0]);
+        int[] cumulative = new int[array.length];
+        int total = 0;
+        for (int i = 0; i < array.length; i++) {
+            total += array[i].getWeight();
+            cumulative[i] = total;
+        }
+
+        // Use stickiness from the first variant as a proxy for the strategy's
+        // stickiness configuration
+        String stickiness = array[0].getStickiness();
+        if (stickiness == null || stickiness.isEmpty() || "default".equals(stickiness)) {
+            stickiness = null;
+        }
+        return new CompiledVariants(array, cumulative, total, stickiness);
+    }
+
+    public boolean isEmpty() {
+        return variants.length == 0;
+    }
+
+    public int size() {
+        return variants.length;
+    }
+
+    public Variant get(int index) {
+        return variants[index];
+    }
+
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * The context property used for stickiness, or {@code null} when the
+     * default (user ID) stickiness applies.
+     */
+    public String getStickiness() {
+        return stickiness;
+    }
+
+    /**
+     * Selects the variant whose cumulative weight range contains the given
+     * normalized hash ({@code 0 <= normalized < totalWeight}).
+     */
+    public Variant select(int normalized) {
+        int index = indexOf(normalized);
+        return index >= 0 ? variants[index] : null;
+    }
+
+    /**
+     * Like {@link #select(int)}, but returns the index of the variant, or -1 if
+     * none matches.
+     */
+    public int indexOf(int normalized) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (normalized < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
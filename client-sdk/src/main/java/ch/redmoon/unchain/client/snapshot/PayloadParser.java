@@ -0,0 +1,155 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.EnvironmentFeature;
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads feature payloads straight into compiled features in one streaming
+ * pass. Each feature is bound and compiled as soon as it has been read, so
+ * neither the raw body nor the whole feature graph is held in memory; fields
+ * the evaluation does not use are skipped by the parser.
+ */
+public class PayloadParser {
+    private final ObjectMapper objectMapper;
+    private final SnapshotCompiler compiler;
+
+    public PayloadParser(ObjectMapper objectMapper, SnapshotCompiler compiler) {
+        this.objectMapper = objectMapper;
+        this.compiler = compiler;
+    }
+
+    /**
+     * @param projectId   project of the payload, or {@code null} to take it
+     *                    from the payload's {@code projectId} field
+     * @param keepSources whether to keep the uncompiled features, see
+     *                    {@link CompiledPayload#toFeatureResponse()}
+     */
+    public CompiledPayload parse(InputStream in, String projectId, boolean keepSources) throws IOException {
+        return parse(in, projectId, null, keepSources);
+    }
+
+    /**
+     * @param environment environment of an environment-scoped payload, whose
+     *                    features only hold the state of that environment;
+     *                    {@code null} for payloads of all environments, or to
+     *                    take it from the payload's {@code environment} field
+     */
+    public CompiledPayload parse(InputStream in, String projectId, String environment, boolean keepSources)
+            throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            return parse(parser, projectId, environment, keepSources);
+        }
+    }
+
+    public CompiledPayload parse(String json, String projectId, boolean keepSources) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return parse(parser, projectId, null, keepSources);
+        }
+    }
+
+    /**
+     * Compiles an already bound payload.
+     */
+    public CompiledPayload compile(String projectId, FeatureResponse fr, boolean keepSources) {
+        Map<String, CompiledFeature> features = new HashMap<>();
+        List<Feature> sources = fr.getFeatures() != null ? fr.getFeatures() : List.of();
+        for (Feature feature : sources) {
+            if (feature.getName() != null) {
+                features.put(feature.getName(), compiler.compile(projectId, feature));
+            }
+        }
+        List<String> deleted = fr.getDeleted() != null ? fr.getDeleted() : List.of();
+        return new CompiledPayload(projectId, features, deleted, fr.getRevision(), fr.isDelta(),
+                fr.getFeatures() != null, keepSources ? sources : null);
+    }
+
+    private CompiledPayload parse(JsonParser parser, String projectId, String environment, boolean keepSources)
+            throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a feature payload object");
+        }
+
+        Map<String, CompiledFeature> features = new HashMap<>();
+        List<String> deleted = new ArrayList<>();
+        List<Feature> sources = keepSources ? new ArrayList<>() : null;
+        // Features read before the project ID is known, compiled at the end
+        List<Feature> pending = new ArrayList<>();
+        Long revision = null;
+        boolean delta = false;
+        boolean hasFeatures = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "projectId" -> {
+                    if (projectId == null && token == JsonToken.VALUE_STRING) {
+                        projectId = parser.getText();
+                    }
+                }
+                // Environment-scoped payloads name their environment before the features
+                case "environment" -> {
+                    if (environment == null && token == JsonToken.VALUE_STRING) {
+                        environment = parser.getText();
+                    }
+                }
+                case "features" -> {
+                    if (token != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    hasFeatures = true;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Feature feature = environment == null
+                                ? objectMapper.readValue(parser, Feature.class)
+                                : objectMapper.readValue(parser, EnvironmentFeature.class).toFeature(environment);
+                        if (feature.getName() == null) {
+                            continue;
+                        }
+                        if (sources != null) {
+                            sources.add(feature);
+                        }
+                        if (projectId != null) {
+                            features.put(feature.getName(), compiler.compile(projectId, feature));
+                        } else {
+                            pending.add(feature);
+                        }
+                    }
+                }
+                case "deleted" -> {
+                    if (token != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                        if (token == JsonToken.VALUE_STRING) {
+                            deleted.add(parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                case "revision" -> revision = token.isNumeric() ? parser.getLongValue() : null;
+                case "delta" -> delta = token == JsonToken.VALUE_TRUE;
+                default -> parser.skipChildren();
+            }
+        }
+
+        for (Feature feature : pending) {
+            features.put(feature.getName(), compiler.compile(projectId, feature));
+        }
+        return new CompiledPayload(projectId, features, deleted, revision, delta, hasFeatures, sources);
+    }
+}
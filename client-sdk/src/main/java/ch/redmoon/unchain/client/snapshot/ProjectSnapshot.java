@@ -0,0 +1,65 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, compiled view of all features of a project. A new snapshot is
+ * built for every fetched payload and published by replacing the previous one,
+ * so readers never observe a partially applied update.
+ */
+public final class ProjectSnapshot {
+    private final String projectId;
+    private final Map<String, CompiledFeature> features;
+
+    ProjectSnapshot(String projectId, Map<String, CompiledFeature> features) {
+        this.projectId = projectId;
+        this.features = Collections.unmodifiableMap(features);
+    }
+
+    public static ProjectSnapshot empty(String projectId) {
+        return new ProjectSnapshot(projectId, new HashMap<>());
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public CompiledFeature getFeature(String featureName) {
+        return features.get(featureName);
+    }
+
+    public Collection<CompiledFeature> getFeatures() {
+        return features.values();
+    }
+
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Returns a copy of this snapshot with the given feature added or replaced.
+     */
+    public ProjectSnapshot withFeature(CompiledFeature feature) {
+        Map<String, CompiledFeature> copy = new HashMap<>(features);
+        copy.put(feature.getName(), feature);
+        return new ProjectSnapshot(projectId, copy);
+    }
+
+    /**
+     * Returns a copy of this snapshot with the given features added or replaced
+     * and the named features removed.
+     */
+    public ProjectSnapshot withChanges(Collection<CompiledFeature> upserted, Collection<String> deleted) {
+        Map<String, CompiledFeature> copy = new HashMap<>(features);
+        for (String featureName : deleted) {
+            copy.remove(featureName);
+        }
+        for (CompiledFeature feature : upserted) {
+            copy.put(feature.getName(), feature);
+        }
+        return new ProjectSnapshot(projectId, copy);
+    }
+}
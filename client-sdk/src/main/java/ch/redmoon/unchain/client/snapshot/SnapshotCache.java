@@ -0,0 +1,223 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last good payload of each project on disk, so a client can serve
+ * correct flag values right after startup, even while the server is
+ * unreachable.
+ * <p>
+ * Each project is stored in a file of its own, replaced atomically on every
+ * write. The file starts with a fixed binary header (magic, format version,
+ * view, revision, ETag) followed by the JSON of the features, and is
+ * memory-mapped when loaded.
+ * <p>
+ * The view names what was fetched, e.g. the enabled features of one
+ * environment. A file of another view is ignored until replaced, as neither
+ * its features nor its revision and ETag fit the current configuration.
+ */
+public class SnapshotCache {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCache.class);
+    private static final int MAGIC = 0x554E4353; // "UNCS"
+    private static final int FORMAT_VERSION = 2;
+    private static final long NO_REVISION = -1;
+    private static final TypeReference<List<Feature>> FEATURE_LIST = new TypeReference<>() {
+    };
+
+    /**
+     * A cached payload with the revision and ETag it was fetched at.
+     */
+    public record Entry(List<Feature> features, Long revision, String etag) {
+    }
+
+    // Source features of a project, kept to apply deltas before writing
+    private static final class State {
+        private final Map<String, Feature> features = new LinkedHashMap<>();
+        private Long revision;
+        private String etag;
+        private long version;
+        // Serializes file writes, so an older state never replaces a newer one
+        private final Object writeLock = new Object();
+        private long writtenVersion;
+    }
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final String view;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param view what the cached payloads are fetched for, distinct for every
+     *             combination of fetch options
+     */
+    public SnapshotCache(Path directory, ObjectMapper objectMapper, String view) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.view = view;
+    }
+
+    /**
+     * Reads the cached payload of a project.
+     *
+     * @return the payload, or empty if there is none or it cannot be read
+     */
+    public Optional<Entry> load(String projectId) {
+        Path file = fileOf(projectId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.warn("Ignoring snapshot cache file {} of unknown format", file);
+                return Optional.empty();
+            }
+            String fileView = readString(buffer);
+            if (!view.equals(fileView)) {
+                // Replaced by the next write
+                log.info("Discarding snapshot cache file {} of view {}, now fetching {}", file, fileView, view);
+                return Optional.empty();
+            }
+            long revision = buffer.getLong();
+            String etag = readString(buffer);
+            int length = buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            List<Feature> features = objectMapper.readValue(new ByteBufferBackedInputStream(payload), FEATURE_LIST);
+
+            Entry entry = new Entry(features, revision == NO_REVISION ? null : revision, etag);
+            State state = states.computeIfAbsent(projectId, k -> new State());
+            synchronized (state) {
+                state.features.clear();
+                features.forEach(feature -> state.features.put(feature.getName(), feature));
+                state.revision = entry.revision();
+                state.etag = etag;
+            }
+            return Optional.of(entry);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            log.warn("Failed to read snapshot cache file {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Applies a fetched payload to the cached state of a project. Cheap enough
+     * to be called while publishing; {@link #write} persists the result.
+     */
+    public void update(String projectId, FeatureResponse fr, Long revision, String etag) {
+        State state = states.computeIfAbsent(projectId, k -> new State());
+        synchronized (state) {
+            if (!fr.isDelta()) {
+                state.features.clear();
+            }
+            if (fr.getDeleted() != null) {
+                fr.getDeleted().forEach(state.features::remove);
+            }
+            for (Feature feature : fr.getFeatures()) {
+                if (feature.getName() != null) {
+                    state.features.put(feature.getName(), feature);
+                }
+            }
+            state.revision = revision;
+            state.etag = etag;
+            state.version++;
+        }
+    }
+
+    /**
+     * Writes the current state of a project to disk, unless a newer state has
+     * already been written. Failures are logged, the cache is best effort.
+     */
+    public void write(String projectId) {
+        State state = states.get(projectId);
+        if (state == null) {
+            return;
+        }
+        List<Feature> features;
+        Long revision;
+        String etag;
+        long version;
+        synchronized (state) {
+            features = List.copyOf(state.features.values());
+            revision = state.revision;
+            etag = state.etag;
+            version = state.version;
+        }
+
+        synchronized (state.writeLock) {
+            if (version <= state.writtenVersion) {
+                return;
+            }
+            Path file = fileOf(projectId);
+            try {
+                byte[] payload = objectMapper.writeValueAsBytes(features);
+                Files.createDirectories(directory);
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    writeString(out, view);
+                    out.writeLong(revision != null ? revision : NO_REVISION);
+                    writeString(out, etag);
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                state.writtenVersion = version;
+                log.debug("Cached {} features of project {} in {}", features.size(), projectId, file);
+            } catch (IOException e) {
+                log.error("Failed to write snapshot cache file {}", file, e);
+            }
+        }
+    }
+
+    // Length-prefixed UTF-8, a length of -1 for null
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private Path fileOf(String projectId) {
+        return directory.resolve(URLEncoder.encode(projectId, StandardCharsets.UTF_8) + ".snapshot");
+    }
+}
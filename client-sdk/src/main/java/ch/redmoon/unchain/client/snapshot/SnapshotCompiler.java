@@ -0,0 +1,120 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.metrics.FlagMetrics;
+import ch.redmoon.unchain.client.metrics.MetricsRegistry;
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.Strategy;
+import ch.redmoon.unchain.client.model.StrategyParameter;
+import ch.redmoon.unchain.client.strategy.ConstraintEvaluator;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiles fetched {@link Feature} payloads into immutable
+ * {@link ProjectSnapshot}s. All per-call parsing (parameter maps, constraint
+ * values, variant weights, evaluator lookups) is done here once per payload.
+ */
+public class SnapshotCompiler {
+    private static final CompiledStrategy[] NO_STRATEGIES = new CompiledStrategy[0];
+
+    private final Function<String, StrategyEvaluator> evaluatorResolver;
+    private final MetricsRegistry metricsRegistry;
+    private final String defaultEnvironment;
+
+    public SnapshotCompiler(Function<String, StrategyEvaluator> evaluatorResolver) {
+        this(evaluatorResolver, null, null);
+    }
+
+    /**
+     * @param metricsRegistry    holds the usage counters of impression data
+     *                           features, may be {@code null}
+     * @param defaultEnvironment environment that every compiled feature gets an
+     *                           entry for, so evaluations in it never miss the
+     *                           environment index; may be {@code null}
+     */
+    public SnapshotCompiler(Function<String, StrategyEvaluator> evaluatorResolver,
+            MetricsRegistry metricsRegistry, String defaultEnvironment) {
+        this.evaluatorResolver = evaluatorResolver;
+        this.metricsRegistry = metricsRegistry;
+        this.defaultEnvironment = defaultEnvironment;
+    }
+
+    public ProjectSnapshot compile(String projectId, List<Feature> features) {
+        Map<String, CompiledFeature> compiled = new HashMap<>(Math.max(16, features.size() * 4 / 3 + 1));
+        for (Feature feature : features) {
+            if (feature.getName() != null) {
+                compiled.put(feature.getName(), compile(projectId, feature));
+            }
+        }
+        return new ProjectSnapshot(projectId, compiled);
+    }
+
+    public CompiledFeature compile(String projectId, Feature feature) {
+        CompiledVariants variants = CompiledVariants.of(feature.getVariants());
+        CompiledResults defaultResults = CompiledResults.of(null, EvaluationResult.Reason.NO_STRATEGIES, variants);
+        Map<String, CompiledEnvironment> environments = new HashMap<>();
+        if (feature.getEnvironments() != null) {
+            for (FeatureEnvironment env : feature.getEnvironments()) {
+                // Keep the first entry on duplicates, like the previous linear scan did
+                if (!environments.containsKey(env.getName())) {
+                    environments.put(env.getName(), compile(env, metricsFor(projectId, feature, env.getName()),
+                            variants, defaultResults));
+                }
+            }
+        }
+        if (defaultEnvironment != null && !environments.containsKey(defaultEnvironment)) {
+            // Not configured there, which evaluates the same as disabled
+            environments.put(defaultEnvironment, new CompiledEnvironment(defaultEnvironment, false, NO_STRATEGIES,
+                    metricsFor(projectId, feature, defaultEnvironment), defaultResults));
+        }
+        return new CompiledFeature(feature.getName(), feature.isImpressionData(), environments, variants);
+    }
+
+    private FlagMetrics metricsFor(String projectId, Feature feature, String environment) {
+        if (metricsRegistry == null || !feature.isImpressionData()) {
+            return null;
+        }
+        return metricsRegistry.metricsFor(projectId, feature.getName(), environment);
+    }
+
+    private CompiledEnvironment compile(FeatureEnvironment env, FlagMetrics metrics,
+            CompiledVariants featureVariants, CompiledResults defaultResults) {
+        List<Strategy> strategies = env.getStrategies();
+        CompiledStrategy[] compiled = new CompiledStrategy[strategies == null ? 0 : strategies.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compile(strategies.get(i), featureVariants);
+        }
+        return new CompiledEnvironment(env.getName(), env.isEnabled(), compiled, metrics, defaultResults);
+    }
+
+    private CompiledStrategy compile(Strategy strategy, CompiledVariants featureVariants) {
+        CompiledVariants variants = CompiledVariants.of(strategy.getVariants());
+        return new CompiledStrategy(
+                strategy.getName(),
+                strategy.getName() != null ? evaluatorResolver.apply(strategy.getName()) : null,
+                getParametersMap(strategy),
+                ConstraintEvaluator.compile(strategy.getConstraints()),
+                variants,
+                CompiledResults.of(strategy.getName(), EvaluationResult.Reason.STRATEGY_MATCH,
+                        variants.isEmpty() ? featureVariants : variants));
+    }
+
+    private static Map<String, String> getParametersMap(Strategy strategy) {
+        if (strategy.getParameters() == null || strategy.getParameters().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (StrategyParameter p : strategy.getParameters()) {
+            // Keep first on duplicates
+            parameters.putIfAbsent(p.getName(), p.getValue() != null ? p.getValue() : "");
+        }
+        return Collections.unmodifiableMap(parameters);
+    }
+}
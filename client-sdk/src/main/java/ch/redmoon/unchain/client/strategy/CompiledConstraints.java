@@ -0,0 +1,38 @@
+package ch.redmoon.unchain.client.strategy;
+
+import ch.redmoon.unchain.client.UnchainContext;
+
+import java.util.function.Predicate;
+
+/**
+ * A constraint list prepared by {@link ConstraintEvaluator#compile(java.util.List)}.
+ * Matches a context if all of its constraints match.
+ */
+public final class CompiledConstraints implements Predicate<UnchainContext> {
+    static final CompiledConstraints ALWAYS = new CompiledConstraints(newArray(0));
+
+    private final Predicate<UnchainContext>[] constraints;
+
+    CompiledConstraints(Predicate<UnchainContext>[] constraints) {
+        this.constraints = constraints;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Predicate<UnchainContext>[] newArray(int size) {
+        return (Predicate<UnchainContext>[]) new Predicate[size];
+    }
+
+    public boolean isEmpty() {
+        return constraints.length == 0;
+    }
+
+    @Override
+    public boolean test(UnchainContext context) {
+        for (Predicate<UnchainContext> constraint : constraints) {
+            if (!constraint.test(context)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
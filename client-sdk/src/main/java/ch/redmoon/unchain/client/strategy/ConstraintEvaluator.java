@@ -7,139 +7,273 @@ import org.slf4j.LoggerFactory;
 
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.Predicate;
 
+/**
+ * Evaluates strategy constraints. Constraint lists are compiled once into a
+ * {@link CompiledConstraints} predicate: values are pre-lowercased and put into
+ * hash sets, numeric, date and semver thresholds are parsed up front, so
+ * evaluating a context only has to resolve and parse the context value.
+ */
 public class ConstraintEvaluator {
     private static final Logger log = LoggerFactory.getLogger(ConstraintEvaluator.class);
 
-    public static boolean evaluate(List<Constraint> constraints, UnchainContext context) {
+    public static CompiledConstraints compile(List<Constraint> constraints) {
         if (constraints == null || constraints.isEmpty()) {
-            return true;
+            return CompiledConstraints.ALWAYS;
         }
 
-        return constraints.stream().allMatch(constraint -> evaluate(constraint, context));
+        Predicate<UnchainContext>[] compiled = CompiledConstraints.newArray(constraints.size());
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compile(constraints.get(i));
+        }
+        return new CompiledConstraints(compiled);
     }
 
-    public static boolean evaluate(Constraint constraint, UnchainContext context) {
-        String contextValue = context.getProperty(constraint.getContextName());
+    public static Predicate<UnchainContext> compile(Constraint constraint) {
+        ContextField field = ContextField.of(constraint.getContextName());
+        boolean inverted = constraint.isInverted();
+        boolean caseInsensitive = constraint.isCaseInsensitive();
+        List<String> values = constraint.getValues() != null ? constraint.getValues() : List.of();
 
-        // Handling special context fields if mapped incorrectly or missing
-        if (contextValue == null) {
-            String ctxName = constraint.getContextName();
-            if ("userId".equalsIgnoreCase(ctxName)) {
-                contextValue = context.getUserId();
-            } else if ("sessionId".equalsIgnoreCase(ctxName)) {
-                contextValue = context.getSessionId();
-            } else if ("environment".equalsIgnoreCase(ctxName)) {
-                contextValue = context.getEnvironment();
-            } else if ("appName".equalsIgnoreCase(ctxName)) {
-                // If appName is used, it often comes from config, but here checking property
-            } else if ("currentTime".equalsIgnoreCase(ctxName)) {
-                contextValue = OffsetDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-            }
-        }
-
-        // If field is missing and constraint requires matching against values, it
-        // usually fails?
-        // But logical operators might behave differently.
-        // Typically undefined context -> false unless operator handles it.
-        // For IN/NOT_IN, undefined means it's not in list.
-
-        boolean result = evaluateInternal(constraint, contextValue);
-        return constraint.isInverted() != result;
-    }
-
-    private static boolean evaluateInternal(Constraint constraint, String contextValue) {
-        if (contextValue == null && constraint.getOperator() != Constraint.Operator.NOT_IN) {
-            // Most operators return false if the value is missing
-            return false;
+        if (constraint.getOperator() == null) {
+            log.warn("Unknown constraint operator: {}", constraint.getOperator());
+            return new Unmatchable(constraint.getContextName(), field, inverted);
         }
 
         switch (constraint.getOperator()) {
             case IN:
-                return contains(constraint.getValues(), contextValue, constraint.isCaseInsensitive());
             case NOT_IN:
-                return !contains(constraint.getValues(), contextValue, constraint.isCaseInsensitive());
+                return new InMatcher(constraint.getContextName(), field, inverted, values, caseInsensitive,
+                        constraint.getOperator() == Constraint.Operator.NOT_IN);
             case STR_ENDS_WITH:
-                if (contextValue == null)
-                    return false;
-                for (String val : constraint.getValues()) {
-                    if (constraint.isCaseInsensitive()) {
-                        if (contextValue.toLowerCase().endsWith(val.toLowerCase()))
-                            return true;
-                    } else {
-                        if (contextValue.endsWith(val))
-                            return true;
-                    }
-                }
-                return false;
             case STR_STARTS_WITH:
-                if (contextValue == null)
-                    return false;
-                for (String val : constraint.getValues()) {
-                    if (constraint.isCaseInsensitive()) {
-                        if (contextValue.toLowerCase().startsWith(val.toLowerCase()))
-                            return true;
-                    } else {
-                        if (contextValue.startsWith(val))
-                            return true;
-                    }
-                }
-                return false;
             case STR_CONTAINS:
-                if (contextValue == null)
-                    return false;
-                for (String val : constraint.getValues()) {
-                    if (constraint.isCaseInsensitive()) {
-                        if (contextValue.toLowerCase().contains(val.toLowerCase()))
-                            return true;
-                    } else {
-                        if (contextValue.contains(val))
-                            return true;
-                    }
-                }
-                return false;
+                return new StringMatcher(constraint.getContextName(), field, inverted, constraint.getOperator(),
+                        values, caseInsensitive);
             case NUM_EQ:
             case NUM_GT:
             case NUM_GTE:
             case NUM_LT:
             case NUM_LTE:
-                return evaluateNumeric(constraint.getOperator(), contextValue, constraint.getValues());
+                return new NumericMatcher(constraint.getContextName(), field, inverted, constraint.getOperator(),
+                        values);
             case DATE_AFTER:
             case DATE_BEFORE:
-                return evaluateDate(constraint.getOperator(), contextValue, constraint.getValues());
+                return new DateMatcher(constraint.getContextName(), field, inverted, constraint.getOperator(),
+                        values);
             case SEMVER_EQ:
             case SEMVER_GT:
             case SEMVER_LT:
-                return evaluateSemVer(constraint.getOperator(), contextValue, constraint.getValues());
+                return new SemVerMatcher(constraint.getContextName(), field, inverted, constraint.getOperator(),
+                        values);
             default:
                 log.warn("Unknown constraint operator: {}", constraint.getOperator());
-                return false;
+                return new Unmatchable(constraint.getContextName(), field, inverted);
         }
     }
 
-    private static boolean contains(List<String> values, String value, boolean caseInsensitive) {
-        if (value == null)
-            return false;
-        if (values == null)
+    /**
+     * Evaluates the constraints against the context. Prefer {@link #compile(List)}
+     * when the same constraints are evaluated repeatedly.
+     */
+    public static boolean evaluate(List<Constraint> constraints, UnchainContext context) {
+        return compile(constraints).test(context);
+    }
+
+    public static boolean evaluate(Constraint constraint, UnchainContext context) {
+        return compile(constraint).test(context);
+    }
+
+    /**
+     * Standard context fields used when a constraint's context name is not
+     * present in the context properties.
+     */
+    private enum ContextField {
+        USER_ID, SESSION_ID, ENVIRONMENT, CURRENT_TIME, OTHER;
+
+        static ContextField of(String contextName) {
+            if ("userId".equalsIgnoreCase(contextName)) {
+                return USER_ID;
+            } else if ("sessionId".equalsIgnoreCase(contextName)) {
+                return SESSION_ID;
+            } else if ("environment".equalsIgnoreCase(contextName)) {
+                return ENVIRONMENT;
+            } else if ("currentTime".equalsIgnoreCase(contextName)) {
+                return CURRENT_TIME;
+            }
+            // appName often comes from config, so it is only looked up in the properties
+            return OTHER;
+        }
+    }
+
+    private abstract static class Matcher implements Predicate<UnchainContext> {
+        final String contextName;
+        final ContextField field;
+        final boolean inverted;
+
+        Matcher(String contextName, ContextField field, boolean inverted) {
+            this.contextName = contextName;
+            this.field = field;
+            this.inverted = inverted;
+        }
+
+        @Override
+        public boolean test(UnchainContext context) {
+            return inverted != matches(context);
+        }
+
+        abstract boolean matches(UnchainContext context);
+
+        String resolve(UnchainContext context) {
+            String contextValue = context.getProperty(contextName);
+            return contextValue != null ? contextValue : resolveStandardField(context);
+        }
+
+        // Handling special context fields if mapped incorrectly or missing
+        String resolveStandardField(UnchainContext context) {
+            switch (field) {
+                case USER_ID:
+                    return context.getUserId();
+                case SESSION_ID:
+                    return context.getSessionId();
+                case ENVIRONMENT:
+                    return context.getEnvironment();
+                case CURRENT_TIME:
+                    return OffsetDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static final class Unmatchable extends Matcher {
+        Unmatchable(String contextName, ContextField field, boolean inverted) {
+            super(contextName, field, inverted);
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
             return false;
-        if (caseInsensitive) {
-            String lowerValue = value.toLowerCase();
-            return values.stream().anyMatch(v -> v.toLowerCase().equals(lowerValue));
         }
-        return values.contains(value);
     }
 
-    private static boolean evaluateNumeric(Constraint.Operator operator, String contextValue, List<String> values) {
-        if (contextValue == null || values == null || values.isEmpty())
+    private static final class InMatcher extends Matcher {
+        private final Set<String> values;
+        private final boolean caseInsensitive;
+        private final boolean negate;
+
+        InMatcher(String contextName, ContextField field, boolean inverted, List<String> values,
+                boolean caseInsensitive, boolean negate) {
+            super(contextName, field, inverted);
+            this.values = new HashSet<>(values.size() * 4 / 3 + 1);
+            for (String value : values) {
+                if (value != null) {
+                    this.values.add(caseInsensitive ? value.toLowerCase() : value);
+                }
+            }
+            this.caseInsensitive = caseInsensitive;
+            this.negate = negate;
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
+            String contextValue = resolve(context);
+            // An undefined context value is never in the list
+            boolean contains = contextValue != null
+                    && values.contains(caseInsensitive ? contextValue.toLowerCase() : contextValue);
+            return negate != contains;
+        }
+    }
+
+    private static final class StringMatcher extends Matcher {
+        private final Constraint.Operator operator;
+        private final String[] values;
+        private final boolean caseInsensitive;
+
+        StringMatcher(String contextName, ContextField field, boolean inverted, Constraint.Operator operator,
+                List<String> values, boolean caseInsensitive) {
+            super(contextName, field, inverted);
+            this.operator = operator;
+            this.values = values.stream()
+                    .takeWhile(v -> v != null)
+                    .map(v -> caseInsensitive ? v.toLowerCase() : v)
+                    .toArray(String[]::new);
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
+            String contextValue = resolve(context);
+            if (contextValue == null) {
+                return false;
+            }
+            if (caseInsensitive) {
+                contextValue = contextValue.toLowerCase();
+            }
+            for (String value : values) {
+                boolean matches;
+                switch (operator) {
+                    case STR_ENDS_WITH:
+                        matches = contextValue.endsWith(value);
+                        break;
+                    case STR_STARTS_WITH:
+                        matches = contextValue.startsWith(value);
+                        break;
+                    default:
+                        matches = contextValue.contains(value);
+                        break;
+                }
+                if (matches) {
+                    return true;
+                }
+            }
             return false;
-        try {
-            double ctxVal = Double.parseDouble(contextValue);
-            for (String val : values) {
-                double constraintVal = Double.parseDouble(val);
-                boolean matches = false;
+        }
+    }
+
+    private static final class NumericMatcher extends Matcher {
+        private final Constraint.Operator operator;
+        private final double[] thresholds;
+
+        NumericMatcher(String contextName, ContextField field, boolean inverted, Constraint.Operator operator,
+                List<String> values) {
+            super(contextName, field, inverted);
+            this.operator = operator;
+            // Values are checked in order and an unparseable value ends the check,
+            // so only the values before the first invalid one can ever match
+            double[] parsed = new double[values.size()];
+            int count = 0;
+            for (String value : values) {
+                try {
+                    parsed[count] = Double.parseDouble(value);
+                    count++;
+                } catch (NumberFormatException | NullPointerException e) {
+                    log.debug("Invalid numeric constraint value: {}", value);
+                    break;
+                }
+            }
+            this.thresholds = Arrays.copyOf(parsed, count);
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
+            String contextValue = resolve(context);
+            if (contextValue == null || thresholds.length == 0) {
+                return false;
+            }
+            double ctxVal;
+            try {
+                ctxVal = Double.parseDouble(contextValue);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            for (double constraintVal : thresholds) {
+                boolean matches;
                 switch (operator) {
                     case NUM_EQ:
                         matches = Math.abs(ctxVal - constraintVal) < 0.000001;
@@ -153,98 +287,185 @@ public class ConstraintEvaluator {
                     case NUM_LT:
                         matches = ctxVal < constraintVal;
                         break;
-                    case NUM_LTE:
+                    default:
                         matches = ctxVal <= constraintVal;
                         break;
                 }
-                if (matches)
+                if (matches) {
                     return true;
+                }
             }
-        } catch (NumberFormatException e) {
             return false;
         }
-        return false;
     }
 
-    private static boolean evaluateDate(Constraint.Operator operator, String contextValue, List<String> values) {
-        if (contextValue == null || values == null || values.isEmpty())
+    private static final class DateMatcher extends Matcher {
+        private final boolean after;
+        private final long[] thresholds;
+
+        DateMatcher(String contextName, ContextField field, boolean inverted, Constraint.Operator operator,
+                List<String> values) {
+            super(contextName, field, inverted);
+            this.after = operator == Constraint.Operator.DATE_AFTER;
+            long[] parsed = new long[values.size()];
+            int count = 0;
+            for (String value : values) {
+                try {
+                    // Supports ISO-8601
+                    parsed[count] = OffsetDateTime.parse(value).toInstant().toEpochMilli();
+                    count++;
+                } catch (Exception e) {
+                    log.debug("Date parse error: {}", e.getMessage());
+                    break;
+                }
+            }
+            this.thresholds = Arrays.copyOf(parsed, count);
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
+            if (thresholds.length == 0) {
+                return false;
+            }
+            long ctxMillis;
+            String contextValue = context.getProperty(contextName);
+            if (contextValue == null && field == ContextField.CURRENT_TIME) {
+                ctxMillis = System.currentTimeMillis();
+            } else {
+                if (contextValue == null) {
+                    contextValue = resolveStandardField(context);
+                }
+                if (contextValue == null) {
+                    return false;
+                }
+                try {
+                    ctxMillis = OffsetDateTime.parse(contextValue).toInstant().toEpochMilli();
+                } catch (Exception e) {
+                    log.debug("Date parse error: {}", e.getMessage());
+                    return false;
+                }
+            }
+            for (long threshold : thresholds) {
+                if (after ? ctxMillis > threshold : ctxMillis < threshold) {
+                    return true;
+                }
+            }
             return false;
-        try {
-            // Supports ISO-8601
-            OffsetDateTime ctxDate = OffsetDateTime.parse(contextValue);
-            for (String val : values) {
-                OffsetDateTime constraintDate = OffsetDateTime.parse(val);
-                boolean matches = false;
+        }
+    }
+
+    private static final class SemVerMatcher extends Matcher {
+        private final Constraint.Operator operator;
+        private final int[][] versions;
+
+        SemVerMatcher(String contextName, ContextField field, boolean inverted, Constraint.Operator operator,
+                List<String> values) {
+            super(contextName, field, inverted);
+            this.operator = operator;
+            this.versions = values.stream()
+                    .takeWhile(v -> v != null)
+                    .map(SemVerMatcher::parse)
+                    .toArray(int[][]::new);
+        }
+
+        @Override
+        boolean matches(UnchainContext context) {
+            String contextValue = resolve(context);
+            if (contextValue == null) {
+                return false;
+            }
+            for (int[] version : versions) {
+                int cmp = compare(contextValue, version);
+                boolean matches;
                 switch (operator) {
-                    case DATE_AFTER:
-                        matches = ctxDate.isAfter(constraintDate);
+                    case SEMVER_EQ:
+                        matches = cmp == 0;
                         break;
-                    case DATE_BEFORE:
-                        matches = ctxDate.isBefore(constraintDate);
+                    case SEMVER_GT:
+                        matches = cmp > 0;
+                        break;
+                    default:
+                        matches = cmp < 0;
                         break;
                 }
-                if (matches)
+                if (matches) {
                     return true;
+                }
             }
-        } catch (Exception e) {
-            log.debug("Date parse error: {}", e.getMessage());
             return false;
         }
-        return false;
-    }
 
-    private static boolean evaluateSemVer(Constraint.Operator operator, String contextValue, List<String> values) {
-        if (contextValue == null || values == null || values.isEmpty())
-            return false;
-        // Simple SemVer implementation: MAJOR.MINOR.PATCH[-PRERELEASE][+BUILDMETADATA]
-        // Regex for validation could be added, or splitting by dot.
-        // Assuming simple major.minor.patch for now to avoid heavy deps.
-
-        for (String val : values) {
-            int cmp = compareSemVer(contextValue, val);
-            boolean matches = false;
-            switch (operator) {
-                case SEMVER_EQ:
-                    matches = cmp == 0;
-                    break;
-                case SEMVER_GT:
-                    matches = cmp > 0;
-                    break;
-                case SEMVER_LT:
-                    matches = cmp < 0;
-                    break;
+        // Simple SemVer implementation: MAJOR.MINOR.PATCH[-PRERELEASE]. The
+        // prerelease part is ignored and unparseable parts count as 0.
+        private static int[] parse(String version) {
+            int end = mainPartEnd(version);
+            int count = 1;
+            for (int i = 0; i < end; i++) {
+                if (version.charAt(i) == '.') {
+                    count++;
+                }
             }
-            if (matches)
-                return true;
+            int[] parts = new int[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                int dot = segmentEnd(version, start, end);
+                parts[i] = parseVer(version, start, dot);
+                start = dot + 1;
+            }
+            return parts;
         }
-        return false;
-    }
 
-    // Returns >0 if v1 > v2, <0 if v1 < v2, 0 if equal
-    private static int compareSemVer(String v1, String v2) {
-        // Strip validation for now, assume X.Y.Z
-        String[] p1 = v1.split("-")[0].split("\\.");
-        String[] p2 = v2.split("-")[0].split("\\.");
-
-        int len = Math.max(p1.length, p2.length);
-        for (int i = 0; i < len; i++) {
-            int n1 = i < p1.length ? parseVer(p1[i]) : 0;
-            int n2 = i < p2.length ? parseVer(p2[i]) : 0;
-            if (n1 != n2) {
-                return n1 - n2;
+        // Returns >0 if version > other, <0 if version < other, 0 if equal, without
+        // allocating for the context value
+        private static int compare(String version, int[] other) {
+            int end = mainPartEnd(version);
+            int start = 0;
+            int i = 0;
+            while (start <= end || i < other.length) {
+                int n1 = 0;
+                if (start <= end) {
+                    int dot = segmentEnd(version, start, end);
+                    n1 = parseVer(version, start, dot);
+                    start = dot + 1;
+                }
+                int n2 = i < other.length ? other[i] : 0;
+                if (n1 != n2) {
+                    return n1 - n2;
+                }
+                i++;
             }
+            return 0;
         }
-        // rudimentary prerelease check if main parts equal?
-        // For simplicity ignoring prerelease order unless necessary
-        return 0;
-    }
 
-    private static int parseVer(String s) {
-        try {
-            return Integer.parseInt(s);
-        } catch (NumberFormatException e) {
-            return 0;
+        private static int mainPartEnd(String version) {
+            int dash = version.indexOf('-');
+            return dash >= 0 ? dash : version.length();
+        }
+
+        private static int segmentEnd(String version, int start, int end) {
+            int dot = version.indexOf('.', start);
+            return dot >= 0 && dot < end ? dot : end;
         }
-    }
 
+        private static int parseVer(String s, int from, int to) {
+            if (from < to && s.charAt(from) == '+') {
+                from++;
+            }
+            if (from >= to) {
+                return 0;
+            }
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = Character.digit(s.charAt(i), 10);
+                if (digit < 0) {
+                    return 0;
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) {
+                    return 0;
+                }
+            }
+            return (int) value;
+        }
+    }
 }
@@ -29,9 +29,7 @@ public class GradualRolloutStrategyEvaluator implements StrategyEvaluator {
             return false;
         }
 
-        String data = groupId + ":" + stickinessValue;
-        long hash = com.sangupta.murmur.Murmur3.hash_x86_32(data.getBytes(java.nio.charset.StandardCharsets.UTF_8),
-                data.length(), 0);
+        long hash = Murmur3.hash(groupId, stickinessValue);
         int normalized = (int) (hash % 100) + 1;
 
         return normalized <= percentage;
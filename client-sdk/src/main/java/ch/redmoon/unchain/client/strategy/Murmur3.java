@@ -0,0 +1,113 @@
+package ch.redmoon.unchain.client.strategy;
+
+/**
+ * Allocation-free MurmurHash3 (x86, 32 bit) of {@code prefix + ":" + suffix}.
+ * <p>
+ * The UTF-8 bytes are produced incrementally from the chars instead of building
+ * the concatenated string and its byte array. The result is identical to
+ * {@code com.sangupta.murmur.Murmur3.hash_x86_32(data.getBytes(UTF_8), data.length(), 0)},
+ * which was used before, so existing rollout and variant buckets are kept. Like
+ * that call, only the first {@code data.length()} bytes are hashed.
+ */
+public final class Murmur3 {
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private Murmur3() {
+    }
+
+    /**
+     * Returns the unsigned 32 bit hash of {@code prefix + ":" + suffix}.
+     */
+    public static long hash(String prefix, String suffix) {
+        int prefixLength = prefix.length();
+        int length = prefixLength + 1 + suffix.length();
+
+        int h1 = 0;
+        int k1 = 0;
+        int bytes = 0;
+
+        for (int i = 0; i < length && bytes < length; i++) {
+            char c = charAt(prefix, suffix, prefixLength, i);
+            int encoded; // up to 4 UTF-8 bytes, first byte in the lowest 8 bits
+            int count;
+            if (c < 0x80) {
+                encoded = c;
+                count = 1;
+            } else if (c < 0x800) {
+                encoded = (0xc0 | (c >> 6)) | (0x80 | (c & 0x3f)) << 8;
+                count = 2;
+            } else if (Character.isSurrogate(c)) {
+                char low = i + 1 < length ? charAt(prefix, suffix, prefixLength, i + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    int cp = Character.toCodePoint(c, low);
+                    encoded = (0xf0 | (cp >> 18))
+                            | (0x80 | ((cp >> 12) & 0x3f)) << 8
+                            | (0x80 | ((cp >> 6) & 0x3f)) << 16
+                            | (0x80 | (cp & 0x3f)) << 24;
+                    count = 4;
+                    i++;
+                } else {
+                    // Malformed surrogates are replaced with '?' by String.getBytes
+                    encoded = '?';
+                    count = 1;
+                }
+            } else {
+                encoded = (0xe0 | (c >> 12)) | (0x80 | ((c >> 6) & 0x3f)) << 8 | (0x80 | (c & 0x3f)) << 16;
+                count = 3;
+            }
+
+            for (int j = 0; j < count && bytes < length; j++) {
+                int b = (encoded >>> (j * 8)) & 0xff;
+                k1 |= b << ((bytes & 3) * 8);
+                bytes++;
+                if ((bytes & 3) == 0) {
+                    h1 = mixH1(h1, mixK1(k1));
+                    k1 = 0;
+                }
+            }
+        }
+
+        if ((bytes & 3) != 0) {
+            // The reference implementation sign-extends the tail bytes
+            int tail = k1;
+            k1 = 0;
+            switch (bytes & 3) {
+                case 3:
+                    k1 ^= ((byte) (tail >>> 16)) << 16;
+                case 2:
+                    k1 ^= ((byte) (tail >>> 8)) << 8;
+                case 1:
+                    k1 ^= (byte) tail;
+                    h1 ^= mixK1(k1);
+            }
+        }
+
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1 & 0xffffffffL;
+    }
+
+    private static char charAt(String prefix, String suffix, int prefixLength, int index) {
+        if (index < prefixLength) {
+            return prefix.charAt(index);
+        }
+        return index == prefixLength ? ':' : suffix.charAt(index - prefixLength - 1);
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * C2;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+}
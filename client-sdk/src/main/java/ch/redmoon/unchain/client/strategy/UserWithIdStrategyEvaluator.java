@@ -1,7 +1,6 @@
 package ch.redmoon.unchain.client.strategy;
 
 import ch.redmoon.unchain.client.UnchainContext;
-import java.util.Arrays;
 import java.util.Map;
 
 public class UserWithIdStrategyEvaluator implements StrategyEvaluator {
@@ -13,12 +12,49 @@ public class UserWithIdStrategyEvaluator implements StrategyEvaluator {
     @Override
     public boolean isEnabled(Map<String, String> parameters, UnchainContext context) {
         String userIds = parameters.get("userIds");
-        if (userIds == null || context.getUserId() == null) {
+        String userId = context.getUserId();
+        if (userIds == null || userId == null) {
             return false;
         }
-        
-        return Arrays.stream(userIds.split(","))
-                .map(String::trim)
-                .anyMatch(id -> id.equals(context.getUserId()));
+
+        // Scan the comma separated list in place instead of splitting it per call
+        int start = 0;
+        while (start <= userIds.length()) {
+            int end = userIds.indexOf(',', start);
+            if (end < 0) {
+                end = userIds.length();
+            }
+            if (start == end && isTrailing(userIds, end)) {
+                // String.split drops trailing empty entries
+                break;
+            }
+            if (matchesTrimmed(userIds, start, end, userId)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean isTrailing(String list, int from) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (int i = from; i < list.length(); i++) {
+            if (list.charAt(i) != ',') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesTrimmed(String list, int start, int end, String userId) {
+        while (start < end && list.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && list.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start == userId.length() && list.startsWith(userId, start);
     }
 }
@@ -0,0 +1,93 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.Strategy;
+import ch.redmoon.unchain.client.model.Variant;
+import ch.redmoon.unchain.client.snapshot.ProjectSnapshot;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationEngineTest {
+
+    private final EvaluationEngine engine = new EvaluationEngine();
+
+    private ProjectSnapshot compile(Feature... features) {
+        return engine.newCompiler(null, null).compile("p1", List.of(features));
+    }
+
+    private static Feature feature(String name, String environment, boolean enabled, String... strategies) {
+        return Feature.builder()
+                .name(name)
+                .environments(List.of(FeatureEnvironment.builder()
+                        .name(environment)
+                        .enabled(enabled)
+                        .strategies(Arrays.stream(strategies)
+                                .map(s -> Strategy.builder().name(s).build())
+                                .toList())
+                        .build()))
+                .build();
+    }
+
+    @Test
+    void evaluate_ReportsWhyAFlagIsOff() {
+        ProjectSnapshot snapshot = compile(
+                feature("off", "production", false),
+                feature("unmatched", "production", true, "userWithId"));
+        UnchainContext context = UnchainContext.builder().userId("u1").build();
+
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND,
+                engine.evaluate(snapshot, "missing", "production", context).getReason());
+        assertEquals(EvaluationResult.Reason.DISABLED,
+                engine.evaluate(snapshot, "off", "production", context).getReason());
+        assertEquals(EvaluationResult.Reason.DISABLED,
+                engine.evaluate(snapshot, "unmatched", "staging", context).getReason());
+        assertEquals(EvaluationResult.Reason.NO_MATCHING_STRATEGY,
+                engine.evaluate(snapshot, "unmatched", "production", context).getReason());
+    }
+
+    @Test
+    void evaluate_SelectsVariantOfMatchingStrategy() {
+        Feature feature = feature("on", "production", true, "default");
+        Variant blue = new Variant();
+        blue.setName("blue");
+        blue.setWeight(1000);
+        feature.setVariants(List.of(blue));
+        ProjectSnapshot snapshot = compile(feature);
+
+        EvaluationResult result = engine.evaluate(snapshot, "on", "production",
+                UnchainContext.builder().userId("u1").build());
+
+        assertTrue(result.isEnabled());
+        assertEquals(EvaluationResult.Reason.STRATEGY_MATCH, result.getReason());
+        assertEquals("default", result.getStrategyName());
+        assertEquals("blue", result.getVariant().getName());
+    }
+
+    @Test
+    void evaluate_ResolvesEvaluatorsRegisteredAfterCompiling() {
+        ProjectSnapshot snapshot = compile(feature("custom", "production", true, "always"));
+        UnchainContext context = UnchainContext.builder().build();
+        assertFalse(engine.evaluate(snapshot, "custom", "production", context).isEnabled());
+
+        engine.registerEvaluator(new StrategyEvaluator() {
+            @Override
+            public String getName() {
+                return "always";
+            }
+
+            @Override
+            public boolean isEnabled(Map<String, String> parameters, UnchainContext context) {
+                return true;
+            }
+        });
+
+        assertTrue(engine.evaluate(snapshot, "custom", "production", context).isEnabled());
+    }
+}
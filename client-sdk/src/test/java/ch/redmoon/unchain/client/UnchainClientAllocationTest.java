@@ -0,0 +1,140 @@
+package ch.redmoon.unchain.client;
+
+import ch.redmoon.unchain.client.model.Constraint;
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.Strategy;
+import ch.redmoon.unchain.client.model.StrategyParameter;
+import ch.redmoon.unchain.client.model.Variant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifies that evaluating precompiled flags does not allocate in steady state,
+ * measured with the per-thread allocation counter the GC profiler uses.
+ */
+public class UnchainClientAllocationTest {
+
+    private static final String ENV = "production";
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    private UnchainClient client;
+
+    @BeforeEach
+    public void setup() {
+        UnchainConfig config = UnchainConfig.builder()
+                .apiUrl("http://localhost:8080")
+                .environment(ENV)
+                .projects(List.of("default"))
+                .build();
+        client = new UnchainClient(config);
+
+        client.addFeature(feature("default-flag", false, strategy("default")));
+        client.addFeature(feature("rollout-flag", true,
+                strategy("flexibleRollout", "percentage", "50", "groupId", "rollout-flag", "stickiness", "userId")));
+        client.addFeature(feature("user-flag", false, strategy("userWithId", "userIds", "alice, bob,user-42")));
+
+        Strategy constrained = strategy("gradualRollout", "percentage", "100");
+        constrained.setConstraints(List.of(Constraint.builder()
+                .contextName("region")
+                .operator(Constraint.Operator.IN)
+                .values(List.of("eu-west-1", "us-east-1"))
+                .build()));
+        Feature variantFlag = feature("variant-flag", true, constrained);
+        variantFlag.setVariants(List.of(variant("control", 500), variant("treatment", 500)));
+        client.addFeature(variantFlag);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void shouldNotAllocateWhenEvaluatingPrecompiledFlags() {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        UnchainContext context = UnchainContext.builder()
+                .userId("user-42")
+                .property("region", "eu-west-1")
+                .build();
+
+        long sink = evaluate(context, WARMUP_ITERATIONS);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        sink += evaluate(context, MEASURED_ITERATIONS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(sink > 0);
+        assertEquals(0, allocated / MEASURED_ITERATIONS,
+                "Expected 0 B/op but allocated " + allocated + " bytes in " + MEASURED_ITERATIONS + " iterations");
+    }
+
+    private long evaluate(UnchainContext context, int iterations) {
+        FlagHandle rolloutHandle = client.flag("rollout-flag");
+        long enabled = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (rolloutHandle.isEnabled(context))
+                enabled++;
+            if (client.isEnabled("default-flag", context))
+                enabled++;
+            if (client.isEnabled("rollout-flag", context))
+                enabled++;
+            if (client.isEnabled("user-flag", context))
+                enabled++;
+            if (client.isEnabled("missing-flag", context))
+                enabled++;
+            if (client.getVariant("variant-flag", context) != null)
+                enabled++;
+        }
+        return enabled;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "Thread allocation counters are disabled");
+        // Warm up the counter itself
+        threads.getCurrentThreadAllocatedBytes();
+        return threads;
+    }
+
+    private static Feature feature(String name, boolean impressionData, Strategy strategy) {
+        FeatureEnvironment env = new FeatureEnvironment();
+        env.setName(ENV);
+        env.setEnabled(true);
+        env.setStrategies(List.of(strategy));
+
+        Feature feature = new Feature();
+        feature.setName(name);
+        feature.setImpressionData(impressionData);
+        feature.setEnvironments(List.of(env));
+        return feature;
+    }
+
+    private static Strategy strategy(String name, String... parameters) {
+        Strategy strategy = new Strategy();
+        strategy.setName(name);
+        for (int i = 0; i < parameters.length; i += 2) {
+            strategy.getParameters().add(new StrategyParameter(parameters[i], parameters[i + 1]));
+        }
+        return strategy;
+    }
+
+    private static Variant variant(String name, int weight) {
+        Variant variant = new Variant();
+        variant.setName(name);
+        variant.setWeight(weight);
+        return variant;
+    }
+}
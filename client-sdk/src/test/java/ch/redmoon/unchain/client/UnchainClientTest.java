@@ -2,12 +2,32 @@ package ch.redmoon.unchain.client;
 
 import ch.redmoon.unchain.client.model.Feature;
 import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.FeatureResponse;
 import ch.redmoon.unchain.client.model.Strategy;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,4 +128,501 @@ public class UnchainClientTest {
         assertNotNull(selected);
         assertEquals("control", selected.getName());
     }
+
+    @Test
+    public void shouldEvaluateAllFeaturesInOnePass() {
+        for (String name : List.of("on-feature", "off-feature")) {
+            Feature f = new Feature();
+            f.setName(name);
+
+            FeatureEnvironment fe = new FeatureEnvironment();
+            fe.setName(ENV);
+            fe.setEnabled(name.startsWith("on"));
+
+            Strategy s = new Strategy();
+            s.setName("default");
+            fe.setStrategies(List.of(s));
+
+            f.setEnvironments(List.of(fe));
+            client.addFeature(f);
+        }
+
+        Feature f = new Feature();
+        f.setName("variant-feature");
+        FeatureEnvironment fe = new FeatureEnvironment();
+        fe.setName(ENV);
+        fe.setEnabled(true);
+        f.setEnvironments(List.of(fe));
+        ch.redmoon.unchain.client.model.Variant v1 = new ch.redmoon.unchain.client.model.Variant();
+        v1.setName("control");
+        v1.setWeight(1000);
+        f.setVariants(List.of(v1));
+        client.addFeature(f);
+
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        Map<String, EvaluationResult> results = client.evaluateAll(context);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get("on-feature").isEnabled());
+        assertNull(results.get("on-feature").getVariant());
+        assertFalse(results.get("off-feature").isEnabled());
+        assertTrue(results.get("variant-feature").isEnabled());
+        assertEquals("control", results.get("variant-feature").getVariant().getName());
+        for (Map.Entry<String, EvaluationResult> entry : results.entrySet()) {
+            assertEquals(client.isEnabled(entry.getKey(), context), entry.getValue().isEnabled());
+            assertEquals(client.getVariant(entry.getKey(), context), entry.getValue().getVariant());
+        }
+    }
+
+    @Test
+    public void shouldEvaluateAllAsEmptyForUnknownProject() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        assertTrue(client.evaluateAll("unknown", ENV, context).isEmpty());
+    }
+
+    @Test
+    public void shouldEvaluateWithMatchedStrategyAndReason() {
+        Feature f = new Feature();
+        f.setName("variant-feature");
+
+        FeatureEnvironment fe = new FeatureEnvironment();
+        fe.setName(ENV);
+        fe.setEnabled(true);
+
+        Strategy s = new Strategy();
+        s.setName("userWithId");
+        s.getParameters().add(new ch.redmoon.unchain.client.model.StrategyParameter("userIds", "user1"));
+        fe.setStrategies(List.of(s));
+        f.setEnvironments(List.of(fe));
+
+        ch.redmoon.unchain.client.model.Variant v1 = new ch.redmoon.unchain.client.model.Variant();
+        v1.setName("control");
+        v1.setWeight(1000);
+        f.setVariants(List.of(v1));
+        client.addFeature(f);
+
+        EvaluationResult matched = client.evaluate("variant-feature", UnchainContext.builder().userId("user1").build());
+        assertTrue(matched.isEnabled());
+        assertEquals("userWithId", matched.getStrategyName());
+        assertEquals("control", matched.getVariant().getName());
+        assertEquals(EvaluationResult.Reason.STRATEGY_MATCH, matched.getReason());
+
+        EvaluationResult unmatched = client.evaluate("variant-feature", UnchainContext.builder().userId("user2").build());
+        assertFalse(unmatched.isEnabled());
+        assertNull(unmatched.getVariant());
+        assertEquals(EvaluationResult.Reason.NO_MATCHING_STRATEGY, unmatched.getReason());
+
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND,
+                client.evaluate("missing-feature", UnchainContext.builder().userId("user1").build()).getReason());
+    }
+
+    @Test
+    public void evaluatorRegisteredAfterLoadingShouldApplyToLoadedFeatures() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.loadFeatures("default", List.of(defaultFeature("loaded", true)));
+        FlagHandle handle = client.flag("loaded");
+        FlagSnapshot pinned = client.snapshot();
+        assertTrue(client.isEnabled("loaded", context));
+
+        // Replaces the built-in default strategy without recompiling the snapshot
+        client.registerEvaluator(new ch.redmoon.unchain.client.strategy.StrategyEvaluator() {
+            @Override
+            public String getName() {
+                return "default";
+            }
+
+            @Override
+            public boolean isEnabled(Map<String, String> parameters, UnchainContext context) {
+                return false;
+            }
+        });
+
+        assertFalse(client.isEnabled("loaded", context));
+        assertEquals(EvaluationResult.Reason.NO_MATCHING_STRATEGY, client.evaluate("loaded", context).getReason());
+        assertFalse(handle.isEnabled(context));
+        assertFalse(pinned.isEnabled("loaded", context));
+        assertFalse(client.evaluateAll(context).get("loaded").isEnabled());
+    }
+
+    @Test
+    public void flagHandleShouldFollowUpdatesAndDeletes() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        FlagHandle handle = client.flag("handle-feature");
+        assertSame(handle, client.flag("default", "handle-feature", ENV));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, handle.evaluate(context).getReason());
+
+        client.addFeature(defaultFeature("handle-feature", true));
+        assertTrue(handle.isEnabled(context));
+
+        client.loadFeatures("default", List.of(defaultFeature("handle-feature", false)));
+        assertFalse(handle.isEnabled(context));
+        assertEquals(EvaluationResult.Reason.DISABLED, handle.evaluate(context).getReason());
+
+        client.loadFeatures("default", List.of(defaultFeature("other-feature", true)));
+        assertFalse(handle.isEnabled(context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, handle.evaluate(context).getReason());
+    }
+
+    @Test
+    public void shouldApplyDeltaOnTopOfSnapshot() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("kept", true), defaultFeature("changed", false),
+                        defaultFeature("deleted", true)))
+                .revision(10L)
+                .build());
+
+        client.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("changed", true), defaultFeature("added", true)))
+                .deleted(List.of("deleted"))
+                .revision(12L)
+                .delta(true)
+                .build());
+
+        assertTrue(client.isEnabled("kept", context));
+        assertTrue(client.isEnabled("changed", context));
+        assertTrue(client.isEnabled("added", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("deleted", context).getReason());
+        assertEquals(3, client.evaluateAll(context).size());
+    }
+
+    @Test
+    public void pinnedSnapshotShouldIgnoreLaterUpdates() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.loadFeatures("default", List.of(defaultFeature("first", true), defaultFeature("second", true)));
+
+        FlagSnapshot pinned = client.snapshot();
+        client.loadFeatures("default", List.of(defaultFeature("first", false)));
+
+        assertTrue(pinned.isEnabled("first", context));
+        assertTrue(pinned.isEnabled("second", context));
+        assertEquals(2, pinned.evaluateAll(context).size());
+        assertFalse(client.isEnabled("first", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("second", context).getReason());
+        assertEquals(1, client.snapshot().evaluateAll(context).size());
+    }
+
+    @Test
+    public void shouldDispatchMultiplexedEventsByProject() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.onSseEvent("features", "{\"projectId\":\"default\",\"revision\":5,\"features\":[{\"name\":\"streamed\","
+                + "\"environments\":[{\"name\":\"production\",\"enabled\":true}]}]}");
+        client.onSseEvent("features", "{\"projectId\":\"other\",\"features\":[{\"name\":\"foreign\"}]}");
+
+        assertTrue(client.isEnabled("streamed", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("foreign", context).getReason());
+        assertTrue(client.evaluateAll("other", ENV, context).isEmpty());
+    }
+
+    @Test
+    public void shouldApplyPerFeatureStreamEvents() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.loadFeatures("default", List.of(defaultFeature("kept", true), defaultFeature("removed", true)));
+
+        client.onSseEvent("feature-upserted", "{\"projectId\":\"default\",\"revision\":6,\"features\":[{\"name\":"
+                + "\"added\",\"environments\":[{\"name\":\"production\",\"enabled\":true}]}]}");
+        client.onSseEvent("feature-deleted",
+                "{\"projectId\":\"default\",\"revision\":7,\"features\":[],\"deleted\":[\"removed\"]}");
+
+        assertTrue(client.isEnabled("kept", context));
+        assertTrue(client.isEnabled("added", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("removed", context).getReason());
+    }
+
+    @Test
+    public void shouldApplyCoalescedStreamEvents() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.loadFeatures("default", List.of(defaultFeature("kept", true), defaultFeature("removed", true)));
+
+        client.onSseEvent("features-changed", "{\"projectId\":\"default\",\"revision\":8,\"features\":["
+                + "{\"name\":\"kept\",\"environments\":[{\"name\":\"production\",\"enabled\":false}]},"
+                + "{\"name\":\"added\",\"environments\":[{\"name\":\"production\",\"enabled\":true}]}],"
+                + "\"deleted\":[\"removed\"]}");
+
+        assertFalse(client.isEnabled("kept", context));
+        assertTrue(client.isEnabled("added", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("removed", context).getReason());
+    }
+
+    @Test
+    public void shouldApplyEnvironmentScopedStreamEvents() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+        client.onSseEvent("features", "{\"projectId\":\"default\",\"environment\":\"production\",\"revision\":5,"
+                + "\"features\":[{\"name\":\"scoped\",\"enabled\":true,\"strategies\":[]},"
+                + "{\"name\":\"disabled\",\"enabled\":true,\"strategies\":[]}]}");
+        client.onSseEvent("feature-deleted", "{\"projectId\":\"default\",\"environment\":\"production\","
+                + "\"revision\":6,\"features\":[],\"deleted\":[\"disabled\"],\"delta\":true}");
+
+        assertTrue(client.isEnabled("scoped", context));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, client.evaluate("disabled", context).getReason());
+    }
+
+    @Test
+    public void shouldRejectOtherEnvironmentsWhenEnvironmentScoped() {
+        UnchainContext context = UnchainContext.builder().userId("user1").build();
+
+        assertThrows(IllegalArgumentException.class, () -> client.isEnabled("default", "feature", "staging", context));
+        assertThrows(IllegalArgumentException.class, () -> client.evaluateAll("default", "staging", context));
+        assertThrows(IllegalArgumentException.class, () -> client.flag("default", "feature", "staging"));
+        assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND,
+                client.evaluate("default", "feature", ENV, context).getReason());
+    }
+
+    @Test
+    public void shouldBecomeReadyOnceFeaturesAreLoaded() {
+        assertFalse(client.isReady());
+        assertFalse(client.awaitReady(Duration.ofMillis(10)));
+
+        client.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("kept", true)))
+                .revision(10L)
+                .build());
+
+        assertTrue(client.ready().isDone());
+        assertTrue(client.awaitReady(Duration.ZERO));
+    }
+
+    @Test
+    public void shouldDecodeGzippedResponses() throws Exception {
+        byte[] json = "{\"projectId\":\"default\"}".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        HttpHeaders gzipped = HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip")), (name, value) -> true);
+        HttpHeaders plain = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+        try (InputStream in = UnchainClient.decode(gzipped, new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+        try (InputStream in = UnchainClient.decode(plain, new ByteArrayInputStream(json))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void shouldFallBackToProjectStreamsWithoutMultiplexedStream() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        // Like an older server, which only has the per-project streams
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/projects/default/features/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = exchange.getResponseBody()) {
+                out.write(("data:{\"features\":[{\"name\":\"streamed\",\"environments\":"
+                        + "[{\"name\":\"production\",\"enabled\":true}]}],\"revision\":3}\n\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        UnchainClient streaming = new UnchainClient(UnchainConfig.builder()
+                .apiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .environment(ENV)
+                .projects(List.of("default"))
+                .sseEnabled(true)
+                .build());
+        try {
+            assertTrue(streaming.awaitReady(Duration.ofSeconds(10)));
+            assertTrue(streaming.isEnabled("streamed", UnchainContext.builder().userId("user1").build()));
+        } finally {
+            release.countDown();
+            streaming.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shouldDiscardPollResponseOlderThanAppliedSseEvent() throws Exception {
+        CountDownLatch sseApplied = new CountDownLatch(1);
+        List<String> queries = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        // Answers polls with an older state, and only once the SSE event is applied
+        server.createContext("/client/projects/default/environments/production/features", exchange -> {
+            queries.add(String.valueOf(exchange.getRequestURI().getQuery()));
+            try {
+                sseApplied.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"projectId\":\"default\",\"environment\":\"production\",\"revision\":5,"
+                    + "\"features\":[{\"name\":\"stale\",\"enabled\":true,\"strategies\":[]}]}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("ETag", "W/\"5\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        UnchainClient polling = new UnchainClient(UnchainConfig.builder()
+                .apiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .environment(ENV)
+                .projects(List.of("default"))
+                .build());
+        try {
+            CompletableFuture<Void> poll = CompletableFuture.runAsync(polling::refresh);
+            polling.onSseEvent("features", "{\"projectId\":\"default\",\"environment\":\"production\","
+                    + "\"revision\":6,\"features\":[{\"name\":\"fresh\",\"enabled\":true,\"strategies\":[]}]}");
+            sseApplied.countDown();
+            poll.get(10, TimeUnit.SECONDS);
+
+            UnchainContext context = UnchainContext.builder().userId("user1").build();
+            assertTrue(polling.isEnabled("fresh", context));
+            assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, polling.evaluate("stale", context).getReason());
+
+            // Neither the revision nor the ETag moved back
+            polling.refresh();
+            String last = queries.get(queries.size() - 1);
+            assertTrue(last.contains("sinceRevision=6"), last);
+        } finally {
+            polling.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shutdownShouldNotWaitForUnresponsiveMetricsEndpoint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        // Accepts the report but never answers
+        server.createContext("/metrics", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            UnchainClient unresponsive = new UnchainClient(UnchainConfig.builder()
+                    .apiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                    .environment(ENV)
+                    .projects(List.of("default"))
+                    .metricsTimeoutSeconds(1)
+                    .build());
+            Feature f = defaultFeature("tracked", true);
+            f.setImpressionData(true);
+            unresponsive.addFeature(f);
+            assertTrue(unresponsive.isEnabled("tracked", UnchainContext.builder().userId("user1").build()));
+
+            long start = System.nanoTime();
+            unresponsive.shutdown();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shouldStartFromCachedSnapshot(@TempDir Path cacheDir) {
+        UnchainConfig config = UnchainConfig.builder()
+                .apiUrl("http://localhost:1")
+                .environment(ENV)
+                .projects(List.of("default"))
+                .snapshotCacheDir(cacheDir)
+                .build();
+        UnchainClient first = new UnchainClient(config);
+        first.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("kept", true), defaultFeature("deleted", true)))
+                .revision(10L)
+                .build());
+        first.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("added", true)))
+                .deleted(List.of("deleted"))
+                .revision(11L)
+                .delta(true)
+                .build());
+        first.shutdown();
+
+        // The server is unreachable, so all state comes from the cache
+        UnchainClient second = new UnchainClient(config);
+        try {
+            UnchainContext context = UnchainContext.builder().userId("user1").build();
+            assertTrue(second.isEnabled("kept", context));
+            assertTrue(second.isEnabled("added", context));
+            assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND, second.evaluate("deleted", context).getReason());
+            assertTrue(second.isReady());
+        } finally {
+            second.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldDiscardCachedSnapshotOfOtherFetchOptions(@TempDir Path cacheDir) {
+        Supplier<UnchainConfig.UnchainConfigBuilder> builder = () -> UnchainConfig.builder()
+                .apiUrl("http://localhost:1")
+                .environment(ENV)
+                .projects(List.of("default"))
+                .snapshotCacheDir(cacheDir)
+                .initWaitTimeSeconds(0);
+        UnchainConfig config = builder.get().build();
+        UnchainClient first = new UnchainClient(config);
+        first.applyFeatures("default", FeatureResponse.builder()
+                .features(List.of(defaultFeature("cached", false)))
+                .revision(10L)
+                .build());
+        first.shutdown();
+
+        List<UnchainConfig> changed = List.of(
+                builder.get().fetchEnabledOnly(true).build(),
+                builder.get().environment("other").build(),
+                builder.get().environmentScoped(false).build());
+        for (UnchainConfig changedConfig : changed) {
+            UnchainClient second = new UnchainClient(changedConfig);
+            try {
+                assertFalse(second.isReady());
+                assertEquals(EvaluationResult.Reason.FLAG_NOT_FOUND,
+                        second.evaluate("default", "cached", changedConfig.getEnvironment(),
+                                UnchainContext.builder().build()).getReason());
+            } finally {
+                second.shutdown();
+            }
+        }
+
+        // Still valid for the options it was fetched with
+        UnchainClient unchanged = new UnchainClient(config);
+        try {
+            assertTrue(unchanged.isReady());
+        } finally {
+            unchanged.shutdown();
+        }
+    }
+
+    private Feature defaultFeature(String name, boolean enabled) {
+        Feature f = new Feature();
+        f.setName(name);
+
+        FeatureEnvironment fe = new FeatureEnvironment();
+        fe.setName(ENV);
+        fe.setEnabled(enabled);
+
+        Strategy s = new Strategy();
+        s.setName("default");
+        fe.setStrategies(List.of(s));
+
+        f.setEnvironments(List.of(fe));
+        return f;
+    }
 }
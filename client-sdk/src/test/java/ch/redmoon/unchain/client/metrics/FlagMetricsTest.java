@@ -0,0 +1,71 @@
+package ch.redmoon.unchain.client.metrics;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.model.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlagMetricsTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void shouldCountByOutcomeAndVariant() {
+        FlagMetrics metrics = registry.metricsFor("default", "feature", "production");
+        assertSame(metrics, registry.metricsFor("default", "feature", "production"));
+
+        Variant control = new Variant();
+        control.setName("control");
+        metrics.record(new EvaluationResult(true, control, "default", EvaluationResult.Reason.STRATEGY_MATCH));
+        metrics.record(new EvaluationResult(true, control, "default", EvaluationResult.Reason.STRATEGY_MATCH));
+        metrics.record(new EvaluationResult(true, null, "default", EvaluationResult.Reason.STRATEGY_MATCH));
+        metrics.record(new EvaluationResult(false, null, null, EvaluationResult.Reason.DISABLED));
+
+        FlagMetrics.Counts counts = metrics.drain();
+        assertEquals(3, counts.getYes());
+        assertEquals(1, counts.getNo());
+        assertEquals(4, counts.getTotal());
+        assertEquals(2L, counts.getVariants().get("control"));
+
+        assertTrue(metrics.drain().isEmpty());
+
+        metrics.restore(counts);
+        FlagMetrics.Counts restored = metrics.drain();
+        assertEquals(4, restored.getTotal());
+        assertEquals(2L, restored.getVariants().get("control"));
+    }
+
+    @Test
+    void shouldNotLoseConcurrentIncrements() throws InterruptedException {
+        FlagMetrics metrics = registry.metricsFor("default", "feature", "production");
+        EvaluationResult enabled = new EvaluationResult(true, null, null, EvaluationResult.Reason.NO_STRATEGIES);
+        int threads = 8;
+        int perThread = 100_000;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    metrics.record(enabled);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        long drained = 0;
+        while (workers.stream().anyMatch(Thread::isAlive)) {
+            drained += metrics.drain().getYes();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        drained += metrics.drain().getYes();
+
+        assertEquals((long) threads * perThread, drained);
+    }
+}
@@ -0,0 +1,144 @@
+package ch.redmoon.unchain.client.metrics;
+
+import ch.redmoon.unchain.client.EvaluationResult;
+import ch.redmoon.unchain.client.model.MetricsReportRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsShipperTest {
+
+    private static final EvaluationResult ENABLED = new EvaluationResult(true, null, null,
+            EvaluationResult.Reason.NO_STRATEGIES);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final List<MetricsReportRequest> received = new ArrayList<>();
+    private int status = 202;
+
+    @TempDir
+    Path tempDir;
+
+    private MetricsShipper shipper(Path spoolFile, long spoolMaxBytes) {
+        return new MetricsShipper(registry, objectMapper, (body, gzipped) -> {
+            assertTrue(gzipped);
+            if (status == 202) {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                    received.add(objectMapper.readValue(in.readAllBytes(), MetricsReportRequest.class));
+                }
+            }
+            return status;
+        }, true, spoolFile, spoolMaxBytes);
+    }
+
+    @Test
+    void shouldSendGzippedBatchOfPendingCounts() {
+        MetricsShipper shipper = shipper(null, 0);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+        registry.metricsFor("default", "b", "production").record(ENABLED);
+        assertEquals(2, shipper.getPendingBuckets());
+
+        shipper.flush();
+
+        assertEquals(1, received.size());
+        assertEquals(2, received.get(0).getMetrics().size());
+        assertEquals(3, received.get(0).getMetrics().stream().mapToInt(m -> m.getCount()).sum());
+        assertEquals(0, shipper.getPendingBuckets());
+
+        shipper.flush();
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void shouldKeepCountsInMemoryWithoutSpoolFile() {
+        MetricsShipper shipper = shipper(null, 0);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+
+        status = 503;
+        shipper.flush();
+        assertEquals(1, shipper.getPendingBuckets());
+
+        status = 202;
+        shipper.flush();
+        assertEquals(1, received.size());
+        assertEquals(1, received.get(0).getMetrics().get(0).getCount());
+    }
+
+    @Test
+    void shouldSpoolFailedReportsAndReplayThemInOrder() throws IOException {
+        Path spool = tempDir.resolve("metrics.spool");
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+
+        status = 503;
+        shipper(spool, 1024 * 1024).flush();
+        assertTrue(Files.exists(spool));
+        assertEquals(0, shipper(spool, 1024 * 1024).getPendingBuckets());
+
+        registry.metricsFor("default", "b", "production").record(ENABLED);
+        shipper(spool, 1024 * 1024).flush();
+        assertEquals(2, Files.readAllLines(spool).size());
+
+        // A new shipper, as after a restart, replays the spool first
+        status = 202;
+        registry.metricsFor("default", "c", "production").record(ENABLED);
+        shipper(spool, 1024 * 1024).flush();
+
+        assertFalse(Files.exists(spool));
+        assertEquals(3, received.size());
+        assertEquals("a", received.get(0).getMetrics().get(0).getFeatureName());
+        assertEquals("b", received.get(1).getMetrics().get(0).getFeatureName());
+        assertEquals("c", received.get(2).getMetrics().get(0).getFeatureName());
+    }
+
+    @Test
+    void shouldKeepCountsInMemoryWhenSpoolIsFull() {
+        Path spool = tempDir.resolve("metrics.spool");
+        MetricsShipper shipper = shipper(spool, 16);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+
+        status = 503;
+        shipper.flush();
+
+        assertFalse(Files.exists(spool));
+        assertEquals(1, shipper.getPendingBuckets());
+    }
+
+    @Test
+    void shouldDropRejectedReports() {
+        MetricsShipper shipper = shipper(null, 0);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+
+        status = 400;
+        shipper.flush();
+
+        assertEquals(0, shipper.getPendingBuckets());
+    }
+
+    @Test
+    void shouldSendSmallReportsUncompressed() {
+        List<Boolean> gzipped = new ArrayList<>();
+        MetricsShipper shipper = new MetricsShipper(registry, objectMapper, (body, isGzipped) -> {
+            gzipped.add(isGzipped);
+            received.add(objectMapper.readValue(body, MetricsReportRequest.class));
+            return 202;
+        }, true, 64 * 1024, null, 0);
+        registry.metricsFor("default", "a", "production").record(ENABLED);
+
+        shipper.flush();
+
+        assertEquals(List.of(false), gzipped);
+        assertEquals("a", received.get(0).getMetrics().get(0).getFeatureName());
+    }
+}
@@ -1,10 +1,13 @@
 package ch.redmoon.unchain.client.provider;
 
+import ch.redmoon.unchain.client.EvaluationResult;
 import ch.redmoon.unchain.client.UnchainClient;
+import ch.redmoon.unchain.client.UnchainConfig;
 import ch.redmoon.unchain.client.UnchainContext;
 import ch.redmoon.unchain.client.model.Variant;
 import ch.redmoon.unchain.client.model.VariantPayload;
 import dev.openfeature.sdk.*;
+import dev.openfeature.sdk.exceptions.GeneralError;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +15,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -37,7 +43,8 @@ class UnchainFeatureProviderTest {
 
     @Test
     void getBooleanEvaluation() {
-        when(unchainClient.isEnabled(eq("feature-key"), any(UnchainContext.class))).thenReturn(true);
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(true, null, "default", EvaluationResult.Reason.STRATEGY_MATCH));
 
         EvaluationContext ctx = new ImmutableContext("user-1");
         ProviderEvaluation<Boolean> eval = provider.getBooleanEvaluation("feature-key", false, ctx);
@@ -45,7 +52,7 @@ class UnchainFeatureProviderTest {
         assertTrue(eval.getValue());
         assertEquals(Reason.TARGETING_MATCH.toString(), eval.getReason());
 
-        verify(unchainClient).isEnabled(eq("feature-key"), any(UnchainContext.class));
+        verify(unchainClient).evaluate(eq("feature-key"), any(UnchainContext.class));
     }
 
     @Test
@@ -57,7 +64,8 @@ class UnchainFeatureProviderTest {
         payload.setValue("foo");
         variant.setPayload(payload);
 
-        when(unchainClient.getVariant(eq("feature-key"), any(UnchainContext.class))).thenReturn(variant);
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(true, variant, "default", EvaluationResult.Reason.STRATEGY_MATCH));
 
         EvaluationContext ctx = new ImmutableContext("user-1");
         ProviderEvaluation<String> eval = provider.getStringEvaluation("feature-key", "default", ctx);
@@ -73,7 +81,8 @@ class UnchainFeatureProviderTest {
         variant.setName("simple-variant");
         // No payload
 
-        when(unchainClient.getVariant(eq("feature-key"), any(UnchainContext.class))).thenReturn(variant);
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(true, variant, "default", EvaluationResult.Reason.STRATEGY_MATCH));
 
         EvaluationContext ctx = new ImmutableContext("user-1");
         ProviderEvaluation<String> eval = provider.getStringEvaluation("feature-key", "default", ctx);
@@ -84,7 +93,8 @@ class UnchainFeatureProviderTest {
 
     @Test
     void getStringEvaluation_Default() {
-        when(unchainClient.getVariant(eq("feature-key"), any(UnchainContext.class))).thenReturn(null);
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(false, null, null, EvaluationResult.Reason.DISABLED));
 
         EvaluationContext ctx = new ImmutableContext("user-1");
         ProviderEvaluation<String> eval = provider.getStringEvaluation("feature-key", "default", ctx);
@@ -102,7 +112,8 @@ class UnchainFeatureProviderTest {
         payload.setValue("42");
         variant.setPayload(payload);
 
-        when(unchainClient.getVariant(eq("feature-key"), any(UnchainContext.class))).thenReturn(variant);
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(true, variant, "default", EvaluationResult.Reason.STRATEGY_MATCH));
 
         EvaluationContext ctx = new ImmutableContext("user-1");
         ProviderEvaluation<Integer> eval = provider.getIntegerEvaluation("feature-key", 0, ctx);
@@ -112,7 +123,8 @@ class UnchainFeatureProviderTest {
 
     @Test
     void contextMapping() {
-        when(unchainClient.isEnabled(anyString(), any(UnchainContext.class))).thenReturn(true);
+        when(unchainClient.evaluate(anyString(), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(true, null, "default", EvaluationResult.Reason.STRATEGY_MATCH));
 
         MutableContext ctx = new MutableContext("target-user");
         ctx.add("attr1", "val1");
@@ -121,11 +133,82 @@ class UnchainFeatureProviderTest {
         provider.getBooleanEvaluation("key", false, ctx);
 
         ArgumentCaptor<UnchainContext> captor = ArgumentCaptor.forClass(UnchainContext.class);
-        verify(unchainClient).isEnabled(eq("key"), captor.capture());
+        verify(unchainClient).evaluate(eq("key"), captor.capture());
 
         UnchainContext captured = captor.getValue();
         assertEquals("target-user", captured.getUserId());
         assertEquals("val1", captured.getProperty("attr1"));
         assertEquals("123", captured.getProperty("attr2"));
     }
+
+    @Test
+    void getBooleanEvaluation_Disabled() {
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(false, null, null, EvaluationResult.Reason.DISABLED));
+
+        EvaluationContext ctx = new ImmutableContext("user-1");
+        ProviderEvaluation<Boolean> eval = provider.getBooleanEvaluation("feature-key", true, ctx);
+
+        assertFalse(eval.getValue());
+        assertEquals(Reason.DISABLED.toString(), eval.getReason());
+        verify(unchainClient, never()).getVariant(anyString(), any(UnchainContext.class));
+    }
+
+    @Test
+    void getBooleanEvaluation_NoMatchingStrategy() {
+        when(unchainClient.evaluate(eq("feature-key"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(false, null, null, EvaluationResult.Reason.NO_MATCHING_STRATEGY));
+
+        ProviderEvaluation<Boolean> eval = provider.getBooleanEvaluation("feature-key", true,
+                new ImmutableContext("user-1"));
+
+        assertFalse(eval.getValue());
+        assertEquals(Reason.DEFAULT.toString(), eval.getReason());
+        assertNull(eval.getErrorCode());
+    }
+
+    @Test
+    void getBooleanEvaluation_FlagNotFound() {
+        when(unchainClient.evaluate(eq("missing"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(false, null, null, EvaluationResult.Reason.FLAG_NOT_FOUND));
+
+        ProviderEvaluation<Boolean> eval = provider.getBooleanEvaluation("missing", true,
+                new ImmutableContext("user-1"));
+
+        assertTrue(eval.getValue());
+        assertEquals(Reason.ERROR.toString(), eval.getReason());
+        assertEquals(ErrorCode.FLAG_NOT_FOUND, eval.getErrorCode());
+    }
+
+    @Test
+    void getStringEvaluation_FlagNotFound() {
+        when(unchainClient.evaluate(eq("missing"), any(UnchainContext.class))).thenReturn(
+                new EvaluationResult(false, null, null, EvaluationResult.Reason.FLAG_NOT_FOUND));
+
+        ProviderEvaluation<String> eval = provider.getStringEvaluation("missing", "default",
+                new ImmutableContext("user-1"));
+
+        assertEquals("default", eval.getValue());
+        assertEquals(Reason.ERROR.toString(), eval.getReason());
+        assertEquals(ErrorCode.FLAG_NOT_FOUND, eval.getErrorCode());
+    }
+
+    @Test
+    void initializeShouldReturnOnceClientIsReady() throws Exception {
+        when(unchainClient.getConfig()).thenReturn(UnchainConfig.builder().initWaitTimeSeconds(3).build());
+        when(unchainClient.awaitReady(Duration.ofSeconds(3))).thenReturn(true);
+
+        provider.initialize(new ImmutableContext());
+
+        verify(unchainClient, never()).ready();
+    }
+
+    @Test
+    void initializeShouldFailIfClientIsNotReadyInTime() {
+        when(unchainClient.getConfig()).thenReturn(UnchainConfig.builder().initWaitTimeSeconds(3).build());
+        when(unchainClient.awaitReady(Duration.ofSeconds(3))).thenReturn(false);
+        when(unchainClient.ready()).thenReturn(new CompletableFuture<>());
+
+        assertThrows(GeneralError.class, () -> provider.initialize(new ImmutableContext()));
+    }
 }
@@ -0,0 +1,108 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.strategy.DefaultStrategyEvaluator;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadParserTest {
+
+    private final StrategyEvaluator defaultEvaluator = new DefaultStrategyEvaluator();
+    private final PayloadParser parser = new PayloadParser(new ObjectMapper(),
+            new SnapshotCompiler(name -> "default".equals(name) ? defaultEvaluator : null));
+
+    @Test
+    void parse_CompilesFeaturesAndSkipsUnusedFields() throws IOException {
+        String json = """
+                {"features": [
+                  {"name": "f1", "description": "unused", "tags": [{"key": "a"}],
+                   "environments": [{"name": "production", "enabled": true, "lastSeenAt": null,
+                     "strategies": [{"name": "default", "sortOrder": 1}]}]},
+                  {"name": "f2", "environments": []}],
+                 "links": {"self": "/projects/p1/features"},
+                 "revision": 42}""";
+
+        CompiledPayload payload = parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                "p1", false);
+
+        assertTrue(payload.hasFeatures());
+        assertFalse(payload.isDelta());
+        assertEquals(42L, payload.getRevision());
+        assertNull(payload.toFeatureResponse());
+        ProjectSnapshot snapshot = payload.toSnapshot();
+        assertEquals("p1", snapshot.getProjectId());
+        assertEquals(2, snapshot.size());
+        CompiledEnvironment production = snapshot.getFeature("f1").getEnvironment("production");
+        assertTrue(production.isEnabled());
+        assertSame(defaultEvaluator, production.getStrategy(0).getEvaluator());
+    }
+
+    @Test
+    void parse_TakesProjectIdFromPayloadInAnyOrder() throws IOException {
+        String json = """
+                {"features": [{"name": "added", "environments": []}],
+                 "deleted": ["removed", null],
+                 "delta": true,
+                 "projectId": "p2"}""";
+
+        CompiledPayload payload = parser.parse(json, null, true);
+
+        assertEquals("p2", payload.getProjectId());
+        assertTrue(payload.isDelta());
+        assertEquals(List.of("removed"), payload.getDeleted());
+        assertEquals("added", payload.toFeatureResponse().getFeatures().get(0).getName());
+
+        ProjectSnapshot base = new SnapshotCompiler(name -> null).compile("p2", List.of(
+                Feature.builder().name("removed").build()));
+        ProjectSnapshot applied = payload.applyTo(base);
+        assertNull(applied.getFeature("removed"));
+        assertNotNull(applied.getFeature("added"));
+    }
+
+    @Test
+    void parse_ExpandsEnvironmentScopedFeatures() throws IOException {
+        String json = """
+                {"projectId": "p1", "environment": "production",
+                 "features": [{"name": "f1", "enabled": true, "impressionData": true,
+                               "strategies": [{"name": "default"}]}],
+                 "revision": 7}""";
+
+        CompiledPayload payload = parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                "p1", "production", true);
+
+        Feature source = payload.toFeatureResponse().getFeatures().get(0);
+        assertTrue(source.isImpressionData());
+        assertEquals(1, source.getEnvironments().size());
+        assertEquals("production", source.getEnvironments().get(0).getName());
+        CompiledEnvironment production = payload.toSnapshot().getFeature("f1").getEnvironment("production");
+        assertTrue(production.isEnabled());
+        assertSame(defaultEvaluator, production.getStrategy(0).getEvaluator());
+    }
+
+    @Test
+    void parse_TakesEnvironmentFromPayload() throws IOException {
+        String json = """
+                {"projectId": "p1", "environment": "production",
+                 "features": [{"name": "f1", "enabled": true, "strategies": []}],
+                 "deleted": ["removed"], "delta": true}""";
+
+        CompiledPayload payload = parser.parse(json, null, false);
+
+        assertTrue(payload.isDelta());
+        assertEquals(List.of("removed"), payload.getDeleted());
+        assertTrue(payload.toSnapshot().getFeature("f1").getEnvironment("production").isEnabled());
+    }
+
+    @Test
+    void parse_FlagsMissingFeatureList() throws IOException {
+        assertFalse(parser.parse("{\"features\": null}", "p1", false).hasFeatures());
+    }
+}
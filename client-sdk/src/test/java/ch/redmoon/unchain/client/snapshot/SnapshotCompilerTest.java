@@ -0,0 +1,88 @@
+package ch.redmoon.unchain.client.snapshot;
+
+import ch.redmoon.unchain.client.model.Feature;
+import ch.redmoon.unchain.client.model.FeatureEnvironment;
+import ch.redmoon.unchain.client.model.Strategy;
+import ch.redmoon.unchain.client.model.StrategyParameter;
+import ch.redmoon.unchain.client.model.Variant;
+import ch.redmoon.unchain.client.strategy.DefaultStrategyEvaluator;
+import ch.redmoon.unchain.client.strategy.StrategyEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCompilerTest {
+
+    private final StrategyEvaluator defaultEvaluator = new DefaultStrategyEvaluator();
+    private final SnapshotCompiler compiler = new SnapshotCompiler(
+            name -> "default".equals(name) ? defaultEvaluator : null);
+
+    @Test
+    void compile_IndexesEnvironmentsAndResolvesEvaluators() {
+        Strategy strategy = Strategy.builder()
+                .name("default")
+                .parameters(List.of(
+                        new StrategyParameter("percentage", "50"),
+                        new StrategyParameter("percentage", "75"),
+                        new StrategyParameter("groupId", null)))
+                .build();
+        Feature feature = Feature.builder()
+                .name("f1")
+                .environments(List.of(
+                        FeatureEnvironment.builder().name("production").enabled(true).strategies(List.of(strategy))
+                                .build(),
+                        FeatureEnvironment.builder().name("development").enabled(false).build()))
+                .build();
+
+        ProjectSnapshot snapshot = compiler.compile("p1", List.of(feature));
+
+        CompiledFeature compiled = snapshot.getFeature("f1");
+        assertNotNull(compiled);
+        assertNull(compiled.getEnvironment("staging"));
+        assertFalse(compiled.getEnvironment("development").isEnabled());
+
+        CompiledEnvironment production = compiled.getEnvironment("production");
+        assertTrue(production.isEnabled());
+        assertEquals(1, production.getStrategyCount());
+        assertSame(defaultEvaluator, production.getStrategy(0).getEvaluator());
+        assertEquals(Map.of("percentage", "50", "groupId", ""), production.getStrategy(0).getParameters());
+    }
+
+    @Test
+    void compile_PrecomputesCumulativeVariantWeights() {
+        Feature feature = Feature.builder()
+                .name("f1")
+                .variants(List.of(variant("a", 100), variant("b", 300), variant("c", 600)))
+                .build();
+
+        CompiledVariants variants = compiler.compile("p1", feature).getVariants();
+
+        assertEquals(1000, variants.getTotalWeight());
+        assertNull(variants.getStickiness());
+        assertEquals("a", variants.select(0).getName());
+        assertEquals("a", variants.select(99).getName());
+        assertEquals("b", variants.select(100).getName());
+        assertEquals("b", variants.select(399).getName());
+        assertEquals("c", variants.select(400).getName());
+        assertEquals("c", variants.select(999).getName());
+    }
+
+    @Test
+    void withFeature_ReturnsCopyAndLeavesOriginalUntouched() {
+        ProjectSnapshot empty = ProjectSnapshot.empty("p1");
+        ProjectSnapshot updated = empty.withFeature(compiler.compile("p1", Feature.builder().name("f1").build()));
+
+        assertNull(empty.getFeature("f1"));
+        assertNotNull(updated.getFeature("f1"));
+    }
+
+    private static Variant variant(String name, int weight) {
+        Variant v = new Variant();
+        v.setName(name);
+        v.setWeight(weight);
+        return v;
+    }
+}
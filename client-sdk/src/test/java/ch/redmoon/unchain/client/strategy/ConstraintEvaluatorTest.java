@@ -136,4 +136,69 @@ class ConstraintEvaluatorTest {
                 .build();
         assertTrue(ConstraintEvaluator.evaluate(cEnv, UnchainContext.builder().environment("prod").build()));
     }
+
+    @Test
+    void compile_ReusableAcrossContexts() {
+        CompiledConstraints compiled = ConstraintEvaluator.compile(List.of(
+                Constraint.builder()
+                        .contextName("region")
+                        .operator(Constraint.Operator.NOT_IN)
+                        .values(List.of("EU-WEST-1", "US-EAST-1"))
+                        .caseInsensitive(true)
+                        .build(),
+                Constraint.builder()
+                        .contextName("score")
+                        .operator(Constraint.Operator.NUM_GTE)
+                        .values(List.of("10"))
+                        .build()));
+
+        assertTrue(compiled.test(UnchainContext.builder().property("region", "ap-1").property("score", "10").build()));
+        assertFalse(compiled.test(UnchainContext.builder().property("region", "eu-west-1").property("score", "10").build()));
+        assertFalse(compiled.test(UnchainContext.builder().property("region", "ap-1").property("score", "9").build()));
+        assertFalse(compiled.test(UnchainContext.builder().property("region", "ap-1").build()));
+    }
+
+    @Test
+    void compile_NumericValuesAfterInvalidValueNeverMatch() {
+        Constraint c = Constraint.builder()
+                .contextName("score")
+                .operator(Constraint.Operator.NUM_EQ)
+                .values(List.of("1", "not-a-number", "3"))
+                .build();
+
+        assertTrue(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("score", "1").build()));
+        assertFalse(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("score", "3").build()));
+        assertFalse(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("score", "abc").build()));
+    }
+
+    @Test
+    void compile_CurrentTimeWithoutProperty() {
+        Constraint before = Constraint.builder()
+                .contextName("currentTime")
+                .operator(Constraint.Operator.DATE_BEFORE)
+                .values(List.of("2999-01-01T00:00:00Z"))
+                .build();
+        Constraint after = Constraint.builder()
+                .contextName("currentTime")
+                .operator(Constraint.Operator.DATE_AFTER)
+                .values(List.of("2999-01-01T00:00:00+02:00"))
+                .inverted(true)
+                .build();
+
+        assertTrue(ConstraintEvaluator.evaluate(List.of(before, after), UnchainContext.builder().build()));
+    }
+
+    @Test
+    void compile_SemVerIgnoresPrereleaseAndMissingParts() {
+        Constraint c = Constraint.builder()
+                .contextName("ver")
+                .operator(Constraint.Operator.SEMVER_EQ)
+                .values(List.of("1.2"))
+                .build();
+
+        assertTrue(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("ver", "1.2.0").build()));
+        assertTrue(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("ver", "1.2.0-beta.1").build()));
+        assertFalse(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("ver", "1.2.1").build()));
+        assertFalse(ConstraintEvaluator.evaluate(c, UnchainContext.builder().property("ver", "10.2").build()));
+    }
 }
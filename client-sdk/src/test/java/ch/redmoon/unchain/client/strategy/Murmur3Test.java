@@ -0,0 +1,50 @@
+package ch.redmoon.unchain.client.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Murmur3Test {
+
+    @Test
+    void hash_MatchesReferenceImplementation() {
+        for (String prefix : List.of("", "a", "ab", "abc", "feature", "grüezi", "日本", "😀", "x\uD800")) {
+            for (String suffix : List.of("", "u", "user1", "user-123456789", "zürich", "\uDC00y", "€€€")) {
+                assertEquals(reference(prefix + ":" + suffix), Murmur3.hash(prefix, suffix),
+                        () -> "Mismatch for " + prefix + ":" + suffix);
+            }
+        }
+    }
+
+    @Test
+    void hash_MatchesReferenceImplementationForRandomStrings() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String prefix = randomString(random);
+            String suffix = randomString(random);
+            assertEquals(reference(prefix + ":" + suffix), Murmur3.hash(prefix, suffix));
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(20);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> sb.append((char) (0x20 + random.nextInt(0x5f)));
+                case 1 -> sb.append((char) (0x80 + random.nextInt(0x780)));
+                case 2 -> sb.append((char) (0x800 + random.nextInt(0xf7ff)));
+                default -> sb.appendCodePoint(0x10000 + random.nextInt(0xfffff));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long reference(String data) {
+        return com.sangupta.murmur.Murmur3.hash_x86_32(data.getBytes(StandardCharsets.UTF_8), data.length(), 0);
+    }
+}
@@ -1,5 +1,6 @@
 package ch.redmoon.unchain.sample.controller;
 
+import ch.redmoon.unchain.client.EvaluationResult;
 import ch.redmoon.unchain.client.UnchainClient;
 import ch.redmoon.unchain.client.UnchainContext;
 import ch.redmoon.unchain.client.model.Variant;
@@ -37,14 +38,14 @@ public class FeatureCheckController {
                 .userId(userId != null ? userId : "guest-user")
                 .build();
 
-        boolean enabled = unchainClient.isEnabled(effectiveProject, effectiveName, effectiveEnv, context);
-        Variant variant = unchainClient.getVariant(effectiveProject, effectiveName, effectiveEnv, context);
+        EvaluationResult result = unchainClient.evaluate(effectiveProject, effectiveName, effectiveEnv, context);
+        Variant variant = result.getVariant();
 
         return FeatureStatus.builder()
                 .featureName(effectiveName)
                 .project(effectiveProject)
                 .environment(effectiveEnv)
-                .enabled(enabled)
+                .enabled(result.isEnabled())
                 .variantName(variant != null ? variant.getName() : null)
                 .payload(variant != null && variant.getPayload() != null ? variant.getPayload().getValue() : null)
                 .build();